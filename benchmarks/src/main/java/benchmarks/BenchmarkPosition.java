@@ -0,0 +1,37 @@
+package benchmarks;
+
+import chess.ChessGame;
+
+/**
+ * The positions the benchmarks run on, as FEN records.
+ */
+public enum BenchmarkPosition {
+
+    INITIAL("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"),
+
+    // perft position 6: both sides fully developed with bishops pinning knights
+    MIDDLEGAME("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"),
+
+    ENDGAME("8/5pk1/6p1/3K3p/1r6/6P1/4PP1P/5R2 w - - 0 1"),
+
+    // 1.e4 f5 2.Qh5+
+    CHECK("rnbqkbnr/ppppp1pp/8/5p1Q/4P3/8/PPPP1PPP/RNB1KBNR b KQkq - 1 2"),
+
+    // scholar's mate
+    CHECKMATE("r1bqk2r/pppp1Qpp/2n2n2/2b1p3/2B1P3/8/PPPP1PPP/RNB1K1NR b KQkq - 0 4"),
+
+    STALEMATE("k7/8/1Q6/8/8/8/8/7K b - - 0 1");
+
+    private final String fen;
+
+    BenchmarkPosition(String fen) {
+        this.fen = fen;
+    }
+
+    /**
+     * @return a new game set up at this position
+     */
+    public ChessGame game() {
+        return ChessGame.fromFen(fen);
+    }
+}
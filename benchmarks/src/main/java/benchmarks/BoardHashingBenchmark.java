@@ -0,0 +1,67 @@
+package benchmarks;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares and hashes boards, as done when games are used as map keys or checked
+ * for repeated positions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BoardHashingBenchmark {
+
+    @Param({"INITIAL", "MIDDLEGAME", "ENDGAME"})
+    public BenchmarkPosition position;
+
+    private ChessBoard board;
+    private ChessBoard copy;
+    private ChessBoard other;
+    private ChessGame game;
+
+    @Setup
+    public void setUp() {
+        game = position.game();
+        board = game.getBoard();
+        copy = new ChessBoard(board);
+        other = (position == BenchmarkPosition.INITIAL ? BenchmarkPosition.ENDGAME : BenchmarkPosition.INITIAL)
+                .game().getBoard();
+    }
+
+    @Benchmark
+    public int boardHashCode() {
+        return board.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalBoards() {
+        return board.equals(copy);
+    }
+
+    @Benchmark
+    public boolean differentBoards() {
+        return board.equals(other);
+    }
+
+    @Benchmark
+    public int gameHashCode() {
+        return game.hashCode();
+    }
+}
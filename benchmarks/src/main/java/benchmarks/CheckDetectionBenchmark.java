@@ -0,0 +1,65 @@
+package benchmarks;
+
+import chess.ChessGame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asks whether the side to move is in check, checkmate or stalemate, including
+ * positions where each answer is yes. The game caches its status per position, so
+ * each invocation drops the cache first by setting the turn again; otherwise only
+ * the cache lookup would be measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CheckDetectionBenchmark {
+
+    @Param({"MIDDLEGAME", "ENDGAME", "CHECK", "CHECKMATE", "STALEMATE"})
+    public BenchmarkPosition position;
+
+    private ChessGame game;
+    private ChessGame.TeamColor team;
+
+    @Setup
+    public void setUp() {
+        game = position.game();
+        team = game.getTeamTurn();
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(team);
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        game.setTeamTurn(team);
+        return game.isInCheckmate(team);
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        game.setTeamTurn(team);
+        return game.isInStalemate(team);
+    }
+
+    @Benchmark
+    public boolean isInCheckmateCached() {
+        return game.isInCheckmate(team);
+    }
+}
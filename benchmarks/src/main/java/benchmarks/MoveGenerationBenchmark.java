@@ -0,0 +1,79 @@
+package benchmarks;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.MoveList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the moves of every piece of the side to move, through the public
+ * collection API and through the allocation-free {@link MoveList} API. The game
+ * caches the legal moves of the side to move, so validMoves drops the cache at the
+ * start of each invocation, as a new position would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MoveGenerationBenchmark {
+
+    @Param({"INITIAL", "MIDDLEGAME", "ENDGAME"})
+    public BenchmarkPosition position;
+
+    private ChessGame game;
+    private ChessBoard board;
+    private ChessPosition[] squares;
+    private ChessPiece[] pieces;
+    private final MoveList moves = new MoveList();
+
+    @Setup
+    public void setUp() {
+        game = position.game();
+        board = game.getBoard();
+        List<ChessPosition> team = ChessPiece.findTeamPositions(board, game.getTeamTurn());
+        squares = team.toArray(new ChessPosition[0]);
+        pieces = new ChessPiece[squares.length];
+        for (int i = 0; i < squares.length; i++) {
+            pieces[i] = board.getPiece(squares[i]);
+        }
+    }
+
+    @Benchmark
+    public void pieceMoves(Blackhole blackhole) {
+        for (int i = 0; i < squares.length; i++) {
+            blackhole.consume(pieces[i].pieceMoves(board, squares[i]));
+        }
+    }
+
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        game.setTeamTurn(game.getTeamTurn());
+        for (ChessPosition square : squares) {
+            blackhole.consume(game.validMoves(square));
+        }
+    }
+
+    @Benchmark
+    public int legalMoves() {
+        game.legalMoves(moves);
+        return moves.size();
+    }
+}
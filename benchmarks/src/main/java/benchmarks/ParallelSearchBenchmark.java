@@ -0,0 +1,82 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.engine.ParallelSearcher;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs fixed-time searches with 1 to N threads sharing one transposition table. The
+ * {@code nodes} counter is the nodes searched per second by all threads together,
+ * which is how Lazy SMP scales; each search starts from an empty table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelSearchBenchmark {
+
+    private static final SearchLimits LIMITS = SearchLimits.time(200);
+
+    @Param({"INITIAL", "MIDDLEGAME", "ENDGAME"})
+    public BenchmarkPosition position;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ChessGame game;
+    private ParallelSearcher searcher;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        game = position.game();
+        searcher = new ParallelSearcher(threads, new TranspositionTable(64));
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        searcher.table().clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        searcher.close();
+    }
+
+    @Benchmark
+    public int search(Nodes counter) {
+        SearchResult result = searcher.search(game, LIMITS);
+        counter.nodes += result.nodes();
+        return result.move();
+    }
+}
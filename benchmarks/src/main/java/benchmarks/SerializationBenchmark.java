@@ -0,0 +1,58 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import model.GameData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts {@link GameData} to and from JSON with Gson, the way the DAOs store games
+ * and the WebSocket handler sends them to clients.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SerializationBenchmark {
+
+    @Param({"INITIAL", "MIDDLEGAME", "ENDGAME"})
+    public BenchmarkPosition position;
+
+    private final Gson gson = new Gson();
+    private GameData gameData;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        gameData = new GameData(1, "white", "black", "benchmark", position.game());
+        json = gson.toJson(gameData);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(gameData);
+    }
+
+    @Benchmark
+    public GameData fromJson() {
+        return gson.fromJson(json, GameData.class);
+    }
+
+    @Benchmark
+    public GameData roundTrip() {
+        return gson.fromJson(gson.toJson(gameData), GameData.class);
+    }
+}
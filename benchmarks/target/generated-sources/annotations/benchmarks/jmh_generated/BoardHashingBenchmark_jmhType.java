@@ -0,0 +1,4 @@
+package benchmarks.jmh_generated;
+public class BoardHashingBenchmark_jmhType extends BoardHashingBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package benchmarks.jmh_generated;
+public class CheckDetectionBenchmark_jmhType extends CheckDetectionBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package benchmarks.jmh_generated;
+public class MoveGenerationBenchmark_jmhType extends MoveGenerationBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package benchmarks.jmh_generated;
+public class ParallelSearchBenchmark_Nodes_jmhType extends ParallelSearchBenchmark_Nodes_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package benchmarks.jmh_generated;
+public class ParallelSearchBenchmark_jmhType extends ParallelSearchBenchmark_jmhType_B3 {
+}
+
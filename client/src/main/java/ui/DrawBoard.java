@@ -129,7 +129,7 @@ public class DrawBoard {
                 String bgColor = lightSquare ? EscapeSequences.SET_BG_COLOR_LIGHT_GREY
                         : EscapeSequences.SET_BG_COLOR_DARK_GREY;
 
-                ChessPosition pos = new ChessPosition(row, col);
+                ChessPosition pos = ChessPosition.of(row, col);
                 ChessPiece piece = board.getPiece(pos);
 
                 sb.append(bgColor)
@@ -1,5 +1,6 @@
 package ui;
 
+import chess.ChessGame;
 import chess.ChessMove;
 import chess.ChessPosition;
 import chess.ChessPiece.PieceType;
@@ -8,6 +9,7 @@ import model.GameData;
 import server.ServerFacade;
 import ui.websocket.NotificationHandler;
 import ui.websocket.WebSocketFacade;
+import websocket.messages.Analysis;
 import websocket.messages.ServerMessage;
 
 import java.util.Arrays;
@@ -43,6 +45,9 @@ public class GamePlayClient extends StandardClient implements NotificationHandle
                 this.lastState = message.getGame();
                 if (lastState != null && lastState.game() != null) {
                     System.out.println(DrawBoard.drawBoard(perspective, lastState));
+                    if (message.getStatus() == ChessGame.GameStatus.CHECK) {
+                        System.out.println(lastState.game().getTeamTurn() + " is in check");
+                    }
                 } else {
                     System.out.println("No game state available to draw.");
                 }
@@ -53,7 +58,24 @@ public class GamePlayClient extends StandardClient implements NotificationHandle
             case ERROR -> {
                 System.err.println("Error: " + message.getErrorMessage());
             }
+            case ANALYSIS -> {
+                // the server sends every depth; only the finished analysis is shown
+                Analysis analysis = message.getAnalysis();
+                if (analysis.done()) {
+                    System.out.println("Analysis at depth " + analysis.depth() + ":");
+                    for (Analysis.Line line : analysis.lines()) {
+                        System.out.println("  " + formatScore(line) + "  " + String.join(" ", line.moves()));
+                    }
+                }
+            }
+        }
+    }
+
+    private static String formatScore(Analysis.Line line) {
+        if (line.mateIn() != 0) {
+            return "#" + line.mateIn();
         }
+        return String.format("%+.2f", line.centipawns() / 100.0);
     }
 
 
@@ -78,6 +100,8 @@ public class GamePlayClient extends StandardClient implements NotificationHandle
                 case "move" -> move(params);
                 case "resign" -> resign();
                 case "legal" -> legal(params);
+                case "analyze" -> analyze(params);
+                case "bot" -> bot();
                 case "help" -> help();
                 case "" -> "";
                 default -> "Unknown command. Type 'help' for options.";
@@ -111,7 +135,7 @@ public class GamePlayClient extends StandardClient implements NotificationHandle
             ChessPosition end = parsePosition(destination);
             PieceType promotion = (promotionStr != null) ? parsePieceType(promotionStr) : null;
 
-            ChessMove move = new ChessMove(start, end, promotion);
+            ChessMove move = ChessMove.of(start, end, promotion);
             ws.sendMove(authToken, gameID, move);
             return "Move sent: " + move;
         }
@@ -136,6 +160,23 @@ public class GamePlayClient extends StandardClient implements NotificationHandle
                 "Expected: <position> (e.g. f5)");
     }
 
+    public String analyze(String... params) throws ResponseException {
+        try {
+            Integer lines = params.length >= 1 ? Integer.valueOf(params[0]) : null;
+            Integer depth = params.length >= 2 ? Integer.valueOf(params[1]) : null;
+            ws.sendAnalyze(authToken, gameID, lines, depth);
+            return "Analyzing...";
+        } catch (NumberFormatException e) {
+            throw new ResponseException(ResponseException.Code.ClientError,
+                    "Expected: <optional lines> <optional depth> (e.g. 3 12)");
+        }
+    }
+
+    public String bot() throws ResponseException {
+        ws.sendAddBot(authToken, gameID);
+        return "Inviting the engine...";
+    }
+
     public String help() {
         return """
                 redraw - redraws chess board
@@ -143,6 +184,8 @@ public class GamePlayClient extends StandardClient implements NotificationHandle
                 move <source> <destination> <optional promotion> (e.g. f5 e4 q) - make move
                 resign - forfeits the game
                 legal <position> (e.g. f5) - highlights legal moves for selected piece
+                analyze <optional lines> <optional depth> (e.g. 3 12) - shows the engine's best moves
+                bot - has the engine take the empty seat and play against you
                 help - show possible commands
                 """;
     }
@@ -154,7 +197,7 @@ public class GamePlayClient extends StandardClient implements NotificationHandle
         char file = Character.toLowerCase(algebraic.charAt(0));
         int col = file - 'a' + 1;
         int row = Character.getNumericValue(algebraic.charAt(1));
-        return new ChessPosition(row, col);
+        return ChessPosition.of(row, col);
     }
 
     private PieceType parsePieceType(String s) {
@@ -57,6 +57,17 @@ public class WebSocketFacade extends Endpoint {
         sendCommand(new UserGameCommand(UserGameCommand.CommandType.RESIGN, authToken, gameId));
     }
 
+    public void sendAnalyze(String authToken, int gameId, Integer lines, Integer depth) throws ResponseException {
+        UserGameCommand cmd = new UserGameCommand(UserGameCommand.CommandType.ANALYZE, authToken, gameId);
+        cmd.setLines(lines);
+        cmd.setDepth(depth);
+        sendCommand(cmd);
+    }
+
+    public void sendAddBot(String authToken, int gameId) throws ResponseException {
+        sendCommand(new UserGameCommand(UserGameCommand.CommandType.ADD_BOT, authToken, gameId));
+    }
+
     private void sendCommand(UserGameCommand cmd) throws ResponseException {
         try {
             this.session.getBasicRemote().sendText(gson.toJson(cmd));
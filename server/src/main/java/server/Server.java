@@ -11,6 +11,9 @@ import dataaccess.MySQLDataAccess;
 import model.AuthData;
 import model.UserData;
 import model.GameData;
+import service.AnalysisService;
+import service.BotService;
+import service.EngineScheduler;
 import service.GameService;
 import service.ServiceHelper;
 import service.UserService;
@@ -29,6 +32,9 @@ public class Server {
     private final DataAccess dataAccess;
     private final UserService userService;
     private final GameService gameService;
+    private final EngineScheduler engineScheduler = new EngineScheduler();
+    private final AnalysisService analysisService = new AnalysisService(engineScheduler);
+    private final BotService botService = new BotService(engineScheduler);
     private final Gson gson = new Gson();
     private final Map<Integer, Map<String, WsContext>> gameSessions = new ConcurrentHashMap<>();
 
@@ -69,6 +75,7 @@ public class Server {
         server.get("game", this::listGames);
         server.post("game", this::createGame);
         server.put("game", this::joinGame);
+        server.get("engine", this::engineStats);
 
         server.ws("/ws", ws -> {
             ws.onConnect(ctx -> System.out.println("WebSocket connected: " + ctx.sessionId()));
@@ -87,9 +94,13 @@ public class Server {
 
             ws.onClose(ctx -> {
                 System.out.println("WebSocket closed: " + ctx.sessionId());
-                for (Map<String, WsContext> sessions : gameSessions.values()) {
-                    sessions.entrySet().removeIf(e -> e.getValue() == ctx);
-                }
+                analysisService.cancel(ctx.sessionId());
+                engineScheduler.cancelAll(ctx.sessionId());
+                gameSessions.forEach((gameID, sessions) -> {
+                    if (sessions.entrySet().removeIf(e -> e.getValue() == ctx)) {
+                        forgetBotIfAbandoned(gameID);
+                    }
+                });
             });
 
             ws.onError(ctx -> System.out.println("WebSocket error: " + ctx.error()));
@@ -102,12 +113,19 @@ public class Server {
             case MAKE_MOVE -> handleMakeMove(ctx, command);
             case LEAVE -> handleLeave(ctx, command);
             case RESIGN -> handleResign(ctx, command);
+            case ANALYZE -> handleAnalyze(ctx, command);
+            case ADD_BOT -> handleAddBot(ctx, command);
         }
     }
 
     private void handleConnect(WsContext ctx, UserGameCommand command) {
-        gameSessions.computeIfAbsent(command.getGameID(), id -> new ConcurrentHashMap<>())
-                .put(command.getAuthToken(), ctx);
+        // added under the game's entry, so a bot being forgotten for an empty game is not
+        // forgotten after this connection asks it to move
+        gameSessions.compute(command.getGameID(), (id, sessions) -> {
+            Map<String, WsContext> all = sessions == null ? new ConcurrentHashMap<>() : sessions;
+            all.put(command.getAuthToken(), ctx);
+            return all;
+        });
         try {
             AuthData auth = ServiceHelper.validateAuth(dataAccess, command.getAuthToken());
             GameData game = gameService.getGame(command.getGameID());
@@ -119,6 +137,7 @@ public class Server {
             broadcast(command.getGameID(),
                     new ServerMessage(username + " joined the game as " + color),
                     command.getAuthToken());
+            playBotIfToMove(game);
         } catch (ServiceException e) {
             safeSend(ctx, new ServerMessage(ServerMessage.ServerMessageType.ERROR, e.getMessage()));
         }
@@ -139,15 +158,19 @@ public class Server {
             broadcast(command.getGameID(),
                     new ServerMessage(auth.username() + " made a move"),
                     command.getAuthToken());
+            if (!endIfOver(updated)) {
+                playBotIfToMove(updated);
+            }
         } catch (ServiceException e) {
             safeSend(ctx, new ServerMessage(ServerMessage.ServerMessageType.ERROR, e.getMessage()));
         }
     }
 
     private void handleLeave(WsContext ctx, UserGameCommand command) {
+        analysisService.cancel(ctx.sessionId());
         Map<String, WsContext> sessions = gameSessions.get(command.getGameID());
-        if (sessions != null) {
-            sessions.remove(command.getAuthToken());
+        if (sessions != null && sessions.remove(command.getAuthToken()) != null) {
+            forgetBotIfAbandoned(command.getGameID());
         }
 
         try {
@@ -156,6 +179,9 @@ public class Server {
 
             GameData updated = removePlayerFromGame(auth.username(), game);
             gameService.updateGame(updated);
+            if (updated != game) {
+                botService.forget(command.getGameID());
+            }
 
             broadcast(command.getGameID(),
                     new ServerMessage(auth.username() + " left the game"),
@@ -173,6 +199,7 @@ public class Server {
             validateResign(auth.username(), game);
 
             gameService.resignGame(command.getAuthToken(), command.getGameID());
+            botService.forget(command.getGameID());
             GameData freed = freeGameSlot(auth.username(), game);
             gameService.updateGame(freed);
 
@@ -184,6 +211,110 @@ public class Server {
         }
     }
 
+    private void handleAnalyze(WsContext ctx, UserGameCommand command) {
+        try {
+            ServiceHelper.validateAuth(dataAccess, command.getAuthToken());
+            ChessGame position;
+            if (command.getFen() != null) {
+                try {
+                    position = ChessGame.fromFen(command.getFen());
+                } catch (IllegalArgumentException e) {
+                    throw new ServiceException(400, "Error: invalid FEN");
+                }
+            } else {
+                if (command.getGameID() == null) {
+                    throw new ServiceException(400, "Error: bad request");
+                }
+                position = gameService.getGame(command.getGameID()).game();
+                if (position == null) {
+                    throw new ServiceException(400, "Error: game is over");
+                }
+            }
+            analysisService.analyze(ctx.sessionId(), position, command.getLines(), command.getDepth(),
+                    analysis -> safeSend(ctx, new ServerMessage(analysis)));
+        } catch (ServiceException e) {
+            safeSend(ctx, new ServerMessage(ServerMessage.ServerMessageType.ERROR, e.getMessage()));
+        }
+    }
+
+    private void handleAddBot(WsContext ctx, UserGameCommand command) {
+        try {
+            AuthData auth = ServiceHelper.validateAuth(dataAccess, command.getAuthToken());
+            GameData game = gameService.getGame(command.getGameID());
+            if (game.game() == null) {
+                throw new ServiceException(400, "Error: game is over");
+            }
+            String username = auth.username();
+            GameData updated;
+            String color;
+            if (username.equals(game.whiteUsername()) && game.blackUsername() == null) {
+                updated = new GameData(game.gameID(), username, BotService.USERNAME, game.gameName(), game.game());
+                color = "black";
+            } else if (username.equals(game.blackUsername()) && game.whiteUsername() == null) {
+                updated = new GameData(game.gameID(), BotService.USERNAME, username, game.gameName(), game.game());
+                color = "white";
+            } else if (!username.equals(game.whiteUsername()) && !username.equals(game.blackUsername())) {
+                throw new ServiceException(400, "Error: unauthorized");
+            } else {
+                throw new ServiceException(403, "Error: already taken");
+            }
+            gameService.updateGame(updated);
+            broadcast(game.gameID(), new ServerMessage(BotService.USERNAME + " joined the game as " + color), null);
+            playBotIfToMove(updated);
+        } catch (ServiceException e) {
+            safeSend(ctx, new ServerMessage(ServerMessage.ServerMessageType.ERROR, e.getMessage()));
+        }
+    }
+
+    /**
+     * Frees the bot of a game nobody is connected to, with its table and any search.
+     * It starts afresh if someone connects again.
+     */
+    private void forgetBotIfAbandoned(int gameID) {
+        gameSessions.computeIfPresent(gameID, (id, sessions) -> {
+            if (sessions.isEmpty()) {
+                botService.forget(id);
+            }
+            return sessions;
+        });
+    }
+
+    /**
+     * Has the bot think about its move if it is to move. While it is the opponent's turn
+     * it ponders their expected reply, so a move played here may already be answered.
+     */
+    private void playBotIfToMove(GameData game) throws ServiceException {
+        ChessGame chessGame = game.game();
+        if (chessGame == null || chessGame.getStatus().isGameOver()) {
+            return;
+        }
+        String toMove = chessGame.getTeamTurn() == ChessGame.TeamColor.WHITE
+                ? game.whiteUsername() : game.blackUsername();
+        if (!BotService.USERNAME.equals(toMove)) {
+            return;
+        }
+        long key = chessGame.positionKey();
+        botService.play(game.gameID(), chessGame, move -> makeBotMove(game.gameID(), key, move));
+    }
+
+    // runs on an engine thread
+    private void makeBotMove(int gameID, long key, ChessMove move) {
+        try {
+            GameData current = gameService.getGame(gameID);
+            // the game ended or was left while the bot thought
+            if (current.game() == null || current.game().positionKey() != key) {
+                return;
+            }
+            gameService.makeMove(gameID, move);
+            GameData updated = gameService.getGame(gameID);
+            broadcast(gameID, new ServerMessage(updated), null);
+            broadcast(gameID, new ServerMessage(BotService.USERNAME + " made a move"), null);
+            endIfOver(updated);
+        } catch (ServiceException e) {
+            System.out.println("Bot move failed: " + e.getMessage());
+        }
+    }
+
     private void validateMoveTurn(String username, GameData game) throws ServiceException {
         if (game.game() == null) {
             throw new ServiceException(400, "Error: game is over");
@@ -205,6 +336,31 @@ public class Server {
         }
     }
 
+    /**
+     * @return whether the game is over
+     */
+    private boolean endIfOver(GameData game) throws ServiceException {
+        ChessGame chessGame = game.game();
+        ChessGame.GameStatus status = chessGame.getStatus();
+        if (!status.isGameOver()) {
+            return false;
+        }
+        botService.forget(game.gameID());
+        String player = chessGame.getTeamTurn() == ChessGame.TeamColor.WHITE
+                ? game.whiteUsername() : game.blackUsername();
+        String result = switch (status) {
+            case CHECKMATE -> player + " is in checkmate";
+            case STALEMATE -> player + " is in stalemate. The game is drawn";
+            default -> chessGame.isThreefoldRepetition()
+                    ? "The game is drawn by threefold repetition"
+                    : "The game is drawn by the fifty-move rule";
+        };
+        gameService.updateGame(new GameData(game.gameID(), game.whiteUsername(),
+                game.blackUsername(), game.gameName(), null));
+        broadcast(game.gameID(), new ServerMessage(result), null);
+        return true;
+    }
+
     private GameData removePlayerFromGame(String username, GameData game) {
         if (username.equals(game.whiteUsername())) {
             return new GameData(game.gameID(), null, game.blackUsername(),
@@ -248,7 +404,7 @@ public class Server {
             }
             WsContext clientCtx = entry.getValue();
             try {
-                clientCtx.send(payload);
+                send(clientCtx, payload);
             } catch (Exception ex) {
                 sessions.remove(entry.getKey());
             }
@@ -258,11 +414,19 @@ public class Server {
     private void safeSend(WsContext ctx, ServerMessage msg) {
         try {
             String payload = gson.toJson(msg);
-            ctx.send(payload);
+            send(ctx, payload);
         } catch (Exception ignored) {
         }
     }
 
+    // analysis updates are sent from engine threads, and a session takes one blocking
+    // send at a time
+    private static void send(WsContext ctx, String payload) {
+        synchronized (ctx.session) {
+            ctx.send(payload);
+        }
+    }
+
     private void register(Context ctx) {
         var serializer = new Gson();
         try {
@@ -344,6 +508,18 @@ public class Server {
         }
     }
 
+    private void engineStats(Context ctx) {
+        var serializer = new Gson();
+        try {
+            ServiceHelper.validateAuth(dataAccess, ctx.header("authorization"));
+            ctx.status(200).result(serializer.toJson(engineScheduler.stats()));
+        } catch (ServiceException e) {
+            handleServiceError(ctx, e, serializer);
+        } catch (Exception e) {
+            handleGenericError(ctx, e, serializer);
+        }
+    }
+
     private void handleServiceError(Context ctx, ServiceException e, Gson serializer) {
         String msg = e.getMessage();
         if (msg == null || msg.isBlank()) {
@@ -365,5 +541,8 @@ public class Server {
 
     public void stop() {
         server.stop();
+        analysisService.close();
+        botService.close();
+        engineScheduler.close();
     }
 }
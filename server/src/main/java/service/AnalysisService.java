@@ -0,0 +1,151 @@
+package service;
+
+import chess.ChessGame;
+import chess.San;
+import chess.engine.Score;
+import chess.engine.SearchResult;
+import chess.engine.Searcher;
+import chess.engine.TranspositionTable;
+import websocket.messages.Analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Runs engine analysis for websocket clients on the {@link EngineScheduler}, behind
+ * moves and hints. Each engine thread keeps its own searcher and transposition table
+ * for analysis, and each client has at most one analysis at a time: a new request
+ * replaces the last one.
+ */
+public class AnalysisService implements AutoCloseable {
+
+    public static final int DEFAULT_LINES = 3;
+    public static final int MAX_LINES = 5;
+    public static final int DEFAULT_DEPTH = 12;
+    public static final int MAX_DEPTH = 30;
+    public static final long MAX_MILLIS = Long.getLong("chess.analysis.millis", 10_000);
+    public static final long MAX_NODES = Long.getLong("chess.analysis.nodes", Long.MAX_VALUE);
+    private static final int HASH_MEGABYTES = 16;
+
+    private final EngineScheduler scheduler;
+    private final ThreadLocal<Searcher> searchers =
+            ThreadLocal.withInitial(() -> new Searcher(new TranspositionTable(HASH_MEGABYTES)));
+    // the running or waiting analysis of each client
+    private final Map<String, EngineScheduler.Ticket> jobs = new ConcurrentHashMap<>();
+
+    public AnalysisService(EngineScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Starts analysing a position, stopping the client's previous analysis. The search
+     * has {@link #MAX_MILLIS} from now, including any time spent waiting for a thread.
+     *
+     * @param client  identifies the client, such as its websocket session
+     * @param game    the position; it is copied, so the caller may go on changing it
+     * @param lines   how many of the best moves to show, or null for the default
+     * @param depth   how deep to search, or null for the default
+     * @param updates called on an engine thread after each depth, the last time with
+     *                {@link Analysis#done()} set
+     * @throws ServiceException if the game is over or too many jobs are waiting
+     */
+    public void analyze(String client, ChessGame game, Integer lines, Integer depth,
+                        Consumer<Analysis> updates) throws ServiceException {
+        if (game.getStatus().isGameOver()) {
+            throw new ServiceException(400, "Error: the position has no moves to analyze");
+        }
+        int lineCount = Math.clamp(lines == null ? DEFAULT_LINES : lines, 1, MAX_LINES);
+        int maxDepth = Math.clamp(depth == null ? DEFAULT_DEPTH : depth, 1, MAX_DEPTH);
+        Job job = new Job(new ChessGame(game), lineCount, maxDepth, updates);
+        cancel(client);
+        EngineScheduler.Ticket ticket = scheduler.submit(client, EngineScheduler.Priority.ANALYSIS,
+                MAX_MILLIS, MAX_NODES, running -> {
+                    try {
+                        job.run(running, searchers.get());
+                    } finally {
+                        jobs.remove(client, running);
+                    }
+                });
+        jobs.put(client, ticket);
+        if (ticket.isDone()) {
+            // it finished before it could be recorded
+            jobs.remove(client, ticket);
+        }
+    }
+
+    /**
+     * Stops a client's analysis, if it has one; no further updates are sent for it
+     */
+    public void cancel(String client) {
+        EngineScheduler.Ticket ticket = jobs.remove(client);
+        if (ticket != null) {
+            ticket.cancel();
+        }
+    }
+
+    @Override
+    public void close() {
+        jobs.values().forEach(EngineScheduler.Ticket::cancel);
+        jobs.clear();
+    }
+
+    private static final class Job {
+
+        private final ChessGame game;
+        private final int lines;
+        private final int depth;
+        private final Consumer<Analysis> updates;
+
+        Job(ChessGame game, int lines, int depth, Consumer<Analysis> updates) {
+            this.game = game;
+            this.lines = lines;
+            this.depth = depth;
+            this.updates = updates;
+        }
+
+        void run(EngineScheduler.Ticket ticket, Searcher searcher) {
+            ticket.watch(searcher);
+            try {
+                List<SearchResult> results = searcher.analyze(game, ticket.limits(depth), lines, iteration -> {
+                    // a cancel may come before the search clears its stop flag
+                    if (ticket.isCancelled()) {
+                        searcher.stop();
+                        return;
+                    }
+                    updates.accept(toAnalysis(iteration, false));
+                });
+                if (!ticket.isCancelled()) {
+                    updates.accept(toAnalysis(results, true));
+                }
+            } finally {
+                ticket.unwatch(searcher);
+            }
+        }
+
+        private Analysis toAnalysis(List<SearchResult> results, boolean done) {
+            List<Analysis.Line> lines = new ArrayList<>(results.size());
+            int depth = 0;
+            long nodes = 0;
+            long millis = 0;
+            for (SearchResult result : results) {
+                depth = Math.max(depth, result.depth());
+                nodes = Math.max(nodes, result.nodes());
+                millis = Math.max(millis, result.millis());
+                List<String> moves = new ArrayList<>(result.pv().length);
+                for (int move : result.pv()) {
+                    moves.add(San.toString(game, move));
+                    game.makeMove(move);
+                }
+                for (int i = 0; i < result.pv().length; i++) {
+                    game.unmakeMove();
+                }
+                int mateIn = Score.mateIn(result.score());
+                lines.add(new Analysis.Line(moves, mateIn == 0 ? result.score() : 0, mateIn));
+            }
+            return new Analysis(depth, nodes, millis, done, lines);
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+import chess.engine.OpeningBook;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.Searcher;
+import chess.engine.Tablebase;
+import chess.engine.TranspositionTable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Plays the engine's side of bot games on the {@link EngineScheduler}. The bot plays
+ * from an opening book while it can, then searches for {@link #MOVE_MILLIS}, with
+ * endgame tables if there are any. Each game keeps its own searcher and
+ * transposition table.
+ * <p>
+ * After each searched move the bot ponders: while the opponent thinks, it searches the
+ * position after the reply it expects, the second move of its principal variation. If
+ * that reply comes, the ponder search becomes the bot's move. A finished one is played
+ * at once, and a running one gets the move's time from then on, with the table already
+ * warm. Any other reply cancels the ponder, and the bot searches as usual.
+ */
+public class BotService implements AutoCloseable {
+
+    /**
+     * The username the bot plays under, which no one can register
+     */
+    public static final String USERNAME = "engine";
+    public static final long MOVE_MILLIS = Long.getLong("chess.bot.millis", 1_000);
+    public static final long PONDER_NODES = Long.getLong("chess.bot.ponderNodes", 10_000_000);
+    private static final int HASH_MEGABYTES = 32;
+
+    private final EngineScheduler scheduler;
+    private final OpeningBook book;
+    private final Tablebase tablebase;
+    private final Search search;
+    private final Map<Integer, Bot> bots = new ConcurrentHashMap<>();
+    private final AtomicLong ponderHits = new AtomicLong();
+    private final AtomicLong ponderMisses = new AtomicLong();
+
+    /**
+     * Uses the opening book at the {@code chess.bot.book} path and the endgame tables in
+     * the {@code chess.bot.tablebases} directory, where those properties are set
+     */
+    public BotService(EngineScheduler scheduler) {
+        this(scheduler, openBook(System.getProperty("chess.bot.book")),
+                System.getProperty("chess.bot.tablebases") == null ? null
+                        : new Tablebase(Path.of(System.getProperty("chess.bot.tablebases"))));
+    }
+
+    /**
+     * @param book      the opening book, or null
+     * @param tablebase the endgame tables, or null
+     */
+    public BotService(EngineScheduler scheduler, OpeningBook book, Tablebase tablebase) {
+        this(scheduler, book, tablebase, Searcher::search);
+    }
+
+    BotService(EngineScheduler scheduler, OpeningBook book, Tablebase tablebase, Search search) {
+        this.scheduler = scheduler;
+        this.book = book;
+        this.tablebase = tablebase;
+        this.search = search;
+    }
+
+    /**
+     * How a bot finds its move, which tests can replace
+     */
+    @FunctionalInterface
+    interface Search {
+        SearchResult run(Searcher searcher, ChessGame game, SearchLimits limits);
+    }
+
+    private static OpeningBook openBook(String path) {
+        if (path == null) {
+            return null;
+        }
+        try {
+            return OpeningBook.open(Path.of(path));
+        } catch (IOException e) {
+            System.out.println("Playing without an opening book: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Has the bot move in a game where it is to move. Asking again for a position
+     * it is already thinking about does nothing.
+     *
+     * @param game   the position; it is copied, so the caller may go on changing it
+     * @param onMove given the bot's move, on an engine thread, or on the caller's
+     *               when a finished ponder search has the answer
+     * @throws ServiceException if the scheduler is shut down
+     */
+    public void play(int gameID, ChessGame game, Consumer<ChessMove> onMove) throws ServiceException {
+        bots.computeIfAbsent(gameID, Bot::new).play(new ChessGame(game), onMove);
+    }
+
+    /**
+     * Stops thinking about a game and frees its table, such as when it ends or
+     * everyone has left it
+     */
+    public void forget(int gameID) {
+        Bot bot = bots.remove(gameID);
+        if (bot != null) {
+            scheduler.cancelAll(bot.owner);
+        }
+    }
+
+    public long ponderHits() {
+        return ponderHits.get();
+    }
+
+    public long ponderMisses() {
+        return ponderMisses.get();
+    }
+
+    /**
+     * @return the reply the bot is pondering in a game, or {@link Move#NONE}
+     */
+    int expectedReply(int gameID) {
+        Bot bot = bots.get(gameID);
+        if (bot == null) {
+            return Move.NONE;
+        }
+        synchronized (bot) {
+            return bot.ponder == null ? Move.NONE : bot.ponder.reply;
+        }
+    }
+
+    /**
+     * Waits for the bot's ponder search in a game to start
+     *
+     * @return false if the bot is not pondering or the search did not start in time
+     */
+    boolean awaitPonder(int gameID, long millis) throws InterruptedException {
+        Bot bot = bots.get(gameID);
+        if (bot == null) {
+            return false;
+        }
+        Ponder ponder;
+        synchronized (bot) {
+            ponder = bot.ponder;
+        }
+        return ponder != null && ponder.searching.await(millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        bots.keySet().forEach(this::forget);
+    }
+
+    private final class Bot {
+
+        private final String owner;
+        // held by whichever job searches, so a cancelled search unwinds before the next
+        private final Searcher searcher;
+        // the position a move is being found for, or 0; guarded by this
+        private long thinking;
+        // guarded by this
+        private Ponder ponder;
+
+        Bot(int gameID) {
+            owner = "bot-" + gameID;
+            searcher = new Searcher(new TranspositionTable(HASH_MEGABYTES), tablebase);
+        }
+
+        void play(ChessGame game, Consumer<ChessMove> onMove) throws ServiceException {
+            long key = game.positionKey();
+            Ponder finished = null;
+            synchronized (this) {
+                if (key == thinking) {
+                    return;
+                }
+                thinking = key;
+                Ponder last = ponder;
+                ponder = null;
+                if (last != null && last.key == key && last.result != null) {
+                    finished = last;
+                } else if (last != null && last.key == key && last.started) {
+                    ponderHits.incrementAndGet();
+                    last.onMove = onMove;
+                    searcher.ponderHit();
+                    return;
+                } else if (last != null) {
+                    // a reply nobody expected, or one that came before the ponder started
+                    ponderMisses.incrementAndGet();
+                    last.cancel();
+                }
+            }
+            if (finished != null) {
+                ponderHits.incrementAndGet();
+                finish(finished.game, finished.result, onMove);
+                return;
+            }
+            scheduler.submit(owner, EngineScheduler.Priority.BOT_MOVE, MOVE_MILLIS, Long.MAX_VALUE, ticket -> {
+                try {
+                    int move = book == null ? Move.NONE : book.pickMove(game, ThreadLocalRandom.current());
+                    if (move != Move.NONE) {
+                        deliver(game, move, onMove);
+                        return;
+                    }
+                    SearchResult result;
+                    synchronized (searcher) {
+                        ticket.watch(searcher);
+                        result = search.run(searcher, game, ticket.limits(SearchLimits.MAX_DEPTH));
+                        ticket.unwatch(searcher);
+                    }
+                    if (!ticket.isCancelled()) {
+                        finish(game, result, onMove);
+                    }
+                } finally {
+                    // a failed or cancelled search must not leave the position claimed,
+                    // or asking again would do nothing
+                    stopThinking(key);
+                }
+            });
+        }
+
+        /**
+         * Plays a searched move and starts pondering the expected reply
+         */
+        private void finish(ChessGame game, SearchResult result, Consumer<ChessMove> onMove) {
+            if (result.move() == Move.NONE) {
+                stopThinking(game.positionKey());
+                return;
+            }
+            if (result.pv().length >= 2) {
+                ChessGame expected = new ChessGame(game);
+                expected.makeMove(result.move());
+                expected.makeMove(result.pv()[1]);
+                if (!expected.getStatus().isGameOver()) {
+                    startPonder(new Ponder(expected, result.pv()[1]));
+                }
+            }
+            deliver(game, result.move(), onMove);
+        }
+
+        private void deliver(ChessGame game, int move, Consumer<ChessMove> onMove) {
+            stopThinking(game.positionKey());
+            onMove.accept(Move.toChessMove(move));
+        }
+
+        private synchronized void stopThinking(long key) {
+            if (thinking == key) {
+                thinking = 0;
+            }
+        }
+
+        // the ponder is published before it is queued, so a reply that comes at once
+        // still finds it
+        private void startPonder(Ponder next) {
+            synchronized (this) {
+                ponder = next;
+            }
+            EngineScheduler.Ticket ticket;
+            try {
+                ticket = scheduler.submit(owner, EngineScheduler.Priority.PONDER, Long.MAX_VALUE, PONDER_NODES,
+                        running -> ponder(next, running));
+            } catch (ServiceException e) {
+                // too busy to ponder
+                synchronized (this) {
+                    if (ponder == next) {
+                        ponder = null;
+                    }
+                }
+                return;
+            }
+            synchronized (this) {
+                next.ticket = ticket;
+                if (next.cancelled) {
+                    ticket.cancel();
+                }
+            }
+        }
+
+        private void ponder(Ponder next, EngineScheduler.Ticket ticket) {
+            try {
+                SearchResult result;
+                synchronized (searcher) {
+                    synchronized (this) {
+                        if (next.cancelled) {
+                            return;
+                        }
+                        // from here a ponder hit or cancel reaches the search, however early
+                        searcher.preparePonder();
+                        next.started = true;
+                        next.searching.countDown();
+                    }
+                    ticket.watch(searcher);
+                    result = searcher.ponder(next.game, new SearchLimits(SearchLimits.MAX_DEPTH, MOVE_MILLIS,
+                            PONDER_NODES));
+                    ticket.unwatch(searcher);
+                }
+                Consumer<ChessMove> onMove;
+                synchronized (this) {
+                    next.result = result;
+                    onMove = next.onMove;
+                }
+                // without a hit, the result waits for the reply
+                if (onMove != null && !ticket.isCancelled()) {
+                    finish(next.game, result, onMove);
+                }
+            } finally {
+                // after a ponder hit the bot's move was this search's to play
+                stopThinking(next.key);
+            }
+        }
+    }
+
+    /**
+     * A search of the position after the reply the bot expects. The fields other than
+     * the position are guarded by the bot.
+     */
+    private static final class Ponder {
+
+        private final ChessGame game;
+        private final long key;
+        private final int reply;
+        // opened when the search starts
+        private final CountDownLatch searching = new CountDownLatch(1);
+        private EngineScheduler.Ticket ticket;
+        private boolean started;
+        private boolean cancelled;
+        // set on a ponder hit while the search runs
+        private Consumer<ChessMove> onMove;
+        private SearchResult result;
+
+        Ponder(ChessGame game, int reply) {
+            this.game = game;
+            this.key = game.positionKey();
+            this.reply = reply;
+        }
+
+        void cancel() {
+            cancelled = true;
+            if (ticket != null) {
+                ticket.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package service;
+
+import chess.engine.SearchLimits;
+import chess.engine.Searcher;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs CPU-heavy engine work away from the websocket threads, on a fixed pool of one
+ * thread per core.
+ * <p>
+ * Waiting jobs run in order of {@link Priority} and then of arrival. Every job has a
+ * time and node budget counted from when it is submitted, so a job that waited long
+ * gets less time to search. Jobs belong to an owner, such as a websocket session, and
+ * can be cancelled one at a time or all together when the owner goes away;
+ * cancelling stops a running search at its next check of the stop flag. Only bot
+ * moves are accepted when the queue is full.
+ * <p>
+ * Ponder searches have no time budget, so at most one thread fewer than the pool
+ * ponders at once and the rest wait their turn outside the pool. A bot move never
+ * waits behind ponders; with a single thread there is no pondering.
+ */
+public class EngineScheduler implements AutoCloseable {
+
+    public static final int DEFAULT_THREADS = Integer.getInteger("chess.engine.threads",
+            Runtime.getRuntime().availableProcessors());
+    public static final int DEFAULT_QUEUE = Integer.getInteger("chess.engine.queue", 64);
+
+    /**
+     * How urgent a job is, most urgent first
+     */
+    public enum Priority {
+        /**
+         * A bot's move in a live game, which a player is waiting for
+         */
+        BOT_MOVE,
+        /**
+         * A hint a player asked for
+         */
+        HINT,
+        /**
+         * Analysis that can wait
+         */
+        ANALYSIS,
+        /**
+         * A bot searching on its opponent's time for a reply that may not come
+         */
+        PONDER
+    }
+
+    /**
+     * Work to run on an engine thread
+     */
+    @FunctionalInterface
+    public interface Task {
+        /**
+         * @param ticket the job's budget and cancellation state; searches should use
+         *               {@link Ticket#limits(int)} and {@link Ticket#watch(Searcher)}
+         */
+        void run(Ticket ticket) throws Exception;
+    }
+
+    /**
+     * A snapshot of the scheduler's load
+     *
+     * @param threads         the size of the pool
+     * @param running         jobs running now
+     * @param queued          jobs waiting, by priority
+     * @param completed       jobs that have run, including ones that failed
+     * @param cancelled       jobs cancelled before or while running
+     * @param rejected        jobs turned away because the queue was full
+     * @param failed          jobs that threw an exception
+     * @param late            jobs that only started after their time budget was spent
+     * @param averageWaitMillis the mean time jobs waited in the queue
+     */
+    public record Stats(int threads, int running, Map<Priority, Integer> queued, long completed, long cancelled,
+                        long rejected, long failed, long late, double averageWaitMillis) {
+
+        public int queuedTotal() {
+            return queued.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+
+    private final int queueCapacity;
+    private final int ponderLimit;
+    // ponders waiting for a ponder slot, and how many hold one; guarded by waitingPonders
+    private final Deque<Ticket> waitingPonders = new ArrayDeque<>();
+    private int ponders;
+    private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+    private final ThreadPoolExecutor pool;
+    private final Map<String, Set<Ticket>> owners = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong late = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    public EngineScheduler() {
+        this(DEFAULT_THREADS, DEFAULT_QUEUE);
+    }
+
+    /**
+     * @param threads       how many jobs run at once
+     * @param queueCapacity how many jobs other than bot moves may wait
+     */
+    public EngineScheduler(int threads, int queueCapacity) {
+        if (threads < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Invalid engine pool: " + threads + " threads, queue "
+                    + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+        this.ponderLimit = threads - 1;
+        pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "engine");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // jobs always pass through the queue, so they are taken in priority order
+        pool.prestartAllCoreThreads();
+    }
+
+    /**
+     * Queues a job
+     *
+     * @param owner    who the job is for, such as a websocket session id
+     * @param priority how urgent it is
+     * @param millis   its time budget, counted from now
+     * @param nodes    its node budget, or {@link Long#MAX_VALUE}
+     * @param task     the work
+     * @return a ticket to cancel the job with
+     * @throws ServiceException if the queue is full
+     */
+    public Ticket submit(String owner, Priority priority, long millis, long nodes, Task task) throws ServiceException {
+        if (priority != Priority.BOT_MOVE && (queue.size() + waitingPonders() >= queueCapacity
+                || (priority == Priority.PONDER && ponderLimit == 0))) {
+            rejected.incrementAndGet();
+            throw new ServiceException(503, "Error: the engine is busy, try again later");
+        }
+        Ticket ticket = new Ticket(owner, priority, millis, nodes, task, sequence.getAndIncrement());
+        // added inside the compute, so a finishing job cannot drop the set meanwhile
+        owners.compute(owner, (key, tickets) -> {
+            Set<Ticket> all = tickets == null ? ConcurrentHashMap.newKeySet() : tickets;
+            all.add(ticket);
+            return all;
+        });
+        try {
+            if (priority != Priority.PONDER || !holdPonder(ticket)) {
+                pool.execute(ticket);
+            }
+        } catch (RejectedExecutionException e) {
+            release(ticket);
+            rejected.incrementAndGet();
+            throw new ServiceException(503, "Error: the engine is shut down");
+        }
+        return ticket;
+    }
+
+    /**
+     * Takes a ponder slot for a ticket, or keeps the ticket until one is free
+     *
+     * @return whether the ticket is kept
+     */
+    private boolean holdPonder(Ticket ticket) {
+        synchronized (waitingPonders) {
+            if (ponders < ponderLimit) {
+                ponders++;
+                return false;
+            }
+            waitingPonders.add(ticket);
+            return true;
+        }
+    }
+
+    // passes a finished ponder's slot on to the next waiting one
+    private void releasePonder() {
+        Ticket next;
+        synchronized (waitingPonders) {
+            next = waitingPonders.poll();
+            if (next == null) {
+                ponders--;
+                return;
+            }
+        }
+        try {
+            pool.execute(next);
+        } catch (RejectedExecutionException e) {
+            // shut down
+        }
+    }
+
+    private int waitingPonders() {
+        synchronized (waitingPonders) {
+            return waitingPonders.size();
+        }
+    }
+
+    /**
+     * Cancels every waiting and running job of an owner, such as when its websocket
+     * closes
+     */
+    public void cancelAll(String owner) {
+        Set<Ticket> tickets = owners.remove(owner);
+        if (tickets != null) {
+            tickets.forEach(Ticket::cancel);
+        }
+    }
+
+    public Stats stats() {
+        Map<Priority, Integer> queued = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            queued.put(priority, 0);
+        }
+        for (Runnable job : queue.toArray(new Runnable[0])) {
+            queued.merge(((Ticket) job).priority, 1, Integer::sum);
+        }
+        queued.merge(Priority.PONDER, waitingPonders(), Integer::sum);
+        long started = completed.get() + running.get();
+        return new Stats(pool.getCorePoolSize(), running.get(), queued, completed.get(), cancelled.get(),
+                rejected.get(), failed.get(), late.get(),
+                started == 0 ? 0 : waitNanos.get() / 1e6 / started);
+    }
+
+    /**
+     * Stops the pool, cancelling running jobs and dropping waiting ones
+     */
+    @Override
+    public void close() {
+        List<Ticket> tickets = new ArrayList<>();
+        owners.values().forEach(tickets::addAll);
+        owners.clear();
+        tickets.forEach(Ticket::cancel);
+        synchronized (waitingPonders) {
+            waitingPonders.clear();
+        }
+        pool.shutdownNow();
+    }
+
+    private void release(Ticket ticket) {
+        owners.computeIfPresent(ticket.owner, (owner, tickets) -> {
+            tickets.remove(ticket);
+            return tickets.isEmpty() ? null : tickets;
+        });
+    }
+
+    /**
+     * One submitted job: its budget, its cancellation state and its place in the queue
+     */
+    public final class Ticket implements Runnable, Comparable<Ticket> {
+
+        private final String owner;
+        private final Priority priority;
+        private final long submitted = System.nanoTime();
+        private final long deadline;
+        private final long nodes;
+        private final Task task;
+        private final long order;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private final Set<Searcher> searchers = ConcurrentHashMap.newKeySet();
+
+        private Ticket(String owner, Priority priority, long millis, long nodes, Task task, long order) {
+            this.owner = owner;
+            this.priority = priority;
+            this.deadline = millis >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE : submitted + millis * 1_000_000;
+            this.nodes = nodes;
+            this.task = task;
+            this.order = order;
+        }
+
+        public Priority priority() {
+            return priority;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return whether the job has run or was skipped after a cancel
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        /**
+         * @return the time left in the job's budget, at least 0
+         */
+        public long remainingMillis() {
+            if (deadline == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(0, (deadline - System.nanoTime()) / 1_000_000);
+        }
+
+        /**
+         * @param depth the deepest the search may go
+         * @return limits for a search that keeps to the job's budget; with the time
+         * spent, the search still completes its first iteration
+         */
+        public SearchLimits limits(int depth) {
+            return new SearchLimits(depth, remainingMillis(), nodes);
+        }
+
+        /**
+         * Has a searcher stopped if the job is cancelled, until {@link #unwatch}. A
+         * searcher watched after the cancel is stopped straight away.
+         */
+        public void watch(Searcher searcher) {
+            searchers.add(searcher);
+            if (cancelled) {
+                searcher.stop();
+            }
+        }
+
+        public void unwatch(Searcher searcher) {
+            searchers.remove(searcher);
+        }
+
+        /**
+         * Cancels the job: it is skipped if it has not started, and its watched
+         * searches stop if it has. A job that is done is left alone.
+         */
+        public void cancel() {
+            if (cancelled || done) {
+                return;
+            }
+            cancelled = true;
+            EngineScheduler.this.cancelled.incrementAndGet();
+            searchers.forEach(Searcher::stop);
+            release(this);
+            if (priority == Priority.PONDER) {
+                synchronized (waitingPonders) {
+                    waitingPonders.remove(this);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                running.incrementAndGet();
+                waitNanos.addAndGet(start - submitted);
+                if (start >= deadline) {
+                    late.incrementAndGet();
+                }
+                try {
+                    task.run(this);
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    System.out.println("Engine job failed: " + e);
+                } finally {
+                    running.decrementAndGet();
+                    completed.incrementAndGet();
+                }
+            } finally {
+                done = true;
+                searchers.clear();
+                release(this);
+                if (priority == Priority.PONDER) {
+                    releasePonder();
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(Ticket other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(order, other.order);
+        }
+    }
+}
@@ -115,7 +115,13 @@ public class GameService {
 
     public void makeMove(String authToken, int gameID, ChessMove move) throws ServiceException {
         AuthData authData = validateAuth(dataAccess, authToken);
+        makeMove(gameID, move);
+    }
 
+    /**
+     * Plays a move for a player without a session, such as the bot
+     */
+    public void makeMove(int gameID, ChessMove move) throws ServiceException {
         try {
             GameData gameData = dataAccess.getGame(gameID);
             if (gameData == null) {
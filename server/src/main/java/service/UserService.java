@@ -24,7 +24,7 @@ public class UserService {
         validateNotBlank(user.email(), 400, "Error: bad request");
 
         try {
-            if (dataAccess.getUser(user.username()) != null) {
+            if (dataAccess.getUser(user.username()) != null || user.username().equals(BotService.USERNAME)) {
                 throw new ServiceException(403, "Error: already taken");
             }
 
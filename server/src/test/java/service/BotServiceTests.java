@@ -0,0 +1,116 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+import chess.MoveList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BotServiceTests {
+
+    private final EngineScheduler scheduler = new EngineScheduler(2, 8);
+    private final BotService bot = new BotService(scheduler, null, null);
+
+    @AfterEach
+    void tearDown() {
+        bot.close();
+        scheduler.close();
+    }
+
+    private ChessMove play(ChessGame game) throws Exception {
+        CompletableFuture<ChessMove> move = new CompletableFuture<>();
+        bot.play(1, game, move::complete);
+        return move.get(10, TimeUnit.SECONDS);
+    }
+
+    private static void assertLegal(ChessGame game, ChessMove move) {
+        MoveList legal = new MoveList();
+        game.legalMoves(legal);
+        assertTrue(Move.toChessMoves(legal).contains(move), move.toString());
+    }
+
+    @Test
+    void playsALegalMove() throws Exception {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        ChessMove move = play(game);
+        assertEquals("d2d5", Move.toString(Move.fromChessMove(move)));
+    }
+
+    @Test
+    void answersExpectedReplyFromPonder() throws Exception {
+        ChessGame game = new ChessGame();
+        game.makeMove(play(game));
+        int reply = bot.expectedReply(1);
+        assertNotEquals(Move.NONE, reply);
+
+        // a reply before the ponder starts would count as a miss
+        assertTrue(bot.awaitPonder(1, 5000));
+        game.makeMove(reply);
+        assertLegal(game, play(game));
+        assertEquals(1, bot.ponderHits());
+        assertEquals(0, bot.ponderMisses());
+    }
+
+    @Test
+    void searchesAgainAfterUnexpectedReply() throws Exception {
+        ChessGame game = new ChessGame();
+        game.makeMove(play(game));
+        int reply = bot.expectedReply(1);
+        MoveList legal = new MoveList();
+        game.legalMoves(legal);
+        int other = legal.get(0) == reply ? legal.get(1) : legal.get(0);
+
+        game.makeMove(other);
+        assertLegal(game, play(game));
+        assertEquals(0, bot.ponderHits());
+        assertEquals(1, bot.ponderMisses());
+    }
+
+    @Test
+    void searchesAgainAfterFailedSearch() throws Exception {
+        AtomicInteger searches = new AtomicInteger();
+        BotService failingOnce = new BotService(scheduler, null, null, (searcher, game, limits) -> {
+            if (searches.getAndIncrement() == 0) {
+                throw new IllegalStateException("search failed");
+            }
+            return searcher.search(game, limits);
+        });
+        try {
+            ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+            CompletableFuture<ChessMove> failed = new CompletableFuture<>();
+            failingOnce.play(1, game, failed::complete);
+            for (int i = 0; i < 100 && scheduler.stats().failed() == 0; i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, scheduler.stats().failed());
+
+            CompletableFuture<ChessMove> move = new CompletableFuture<>();
+            failingOnce.play(1, game, move::complete);
+            assertEquals("d2d5", Move.toString(Move.fromChessMove(move.get(10, TimeUnit.SECONDS))));
+            assertFalse(failed.isDone());
+        } finally {
+            failingOnce.close();
+        }
+    }
+
+    @Test
+    void forgettingStopsPondering() throws Exception {
+        ChessGame game = new ChessGame();
+        game.makeMove(play(game));
+        assertNotEquals(Move.NONE, bot.expectedReply(1));
+
+        bot.forget(1);
+        assertEquals(Move.NONE, bot.expectedReply(1));
+        for (int i = 0; i < 100 && scheduler.stats().running() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, scheduler.stats().running());
+    }
+}
@@ -0,0 +1,166 @@
+package service;
+
+import chess.ChessGame;
+import chess.engine.SearchResult;
+import chess.engine.Searcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static service.EngineScheduler.Priority.*;
+
+public class EngineSchedulerTests {
+
+    private final EngineScheduler scheduler = new EngineScheduler(1, 2);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        scheduler.close();
+    }
+
+    // occupies the only thread until release
+    private void block() throws Exception {
+        scheduler.submit("blocker", BOT_MOVE, Long.MAX_VALUE, Long.MAX_VALUE, ticket -> {
+            started.countDown();
+            release.await();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void runsUrgentJobsFirst() throws Exception {
+        block();
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch finished = new CountDownLatch(4);
+        for (EngineScheduler.Priority priority : List.of(ANALYSIS, HINT, BOT_MOVE, BOT_MOVE)) {
+            scheduler.submit("a", priority, 1000, Long.MAX_VALUE, ticket -> {
+                order.add(ticket.priority().name());
+                finished.countDown();
+            });
+        }
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("BOT_MOVE", "BOT_MOVE", "HINT", "ANALYSIS"), order);
+    }
+
+    @Test
+    void turnsAwayWorkWhenFull() throws Exception {
+        block();
+        scheduler.submit("a", ANALYSIS, 1000, Long.MAX_VALUE, ticket -> { });
+        scheduler.submit("a", HINT, 1000, Long.MAX_VALUE, ticket -> { });
+        ServiceException e = assertThrows(ServiceException.class,
+                () -> scheduler.submit("a", ANALYSIS, 1000, Long.MAX_VALUE, ticket -> { }));
+        assertEquals(503, e.getStatusCode());
+        // bot moves are never turned away
+        scheduler.submit("a", BOT_MOVE, 1000, Long.MAX_VALUE, ticket -> { });
+
+        EngineScheduler.Stats stats = scheduler.stats();
+        assertEquals(1, stats.running());
+        assertEquals(3, stats.queuedTotal());
+        assertEquals(Integer.valueOf(1), stats.queued().get(ANALYSIS));
+        assertEquals(1, stats.rejected());
+    }
+
+    @Test
+    void cancelsAnOwnersJobs() throws Exception {
+        CountDownLatch searching = new CountDownLatch(1);
+        AtomicReference<SearchResult> result = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        scheduler.submit("a", ANALYSIS, Long.MAX_VALUE, Long.MAX_VALUE, ticket -> {
+            Searcher searcher = new Searcher();
+            ticket.watch(searcher);
+            searching.countDown();
+            result.set(searcher.search(new ChessGame(), ticket.limits(64)));
+            finished.countDown();
+        });
+        assertTrue(searching.await(5, TimeUnit.SECONDS));
+        AtomicBoolean ran = new AtomicBoolean();
+        EngineScheduler.Ticket waiting = scheduler.submit("a", HINT, 1000, Long.MAX_VALUE,
+                ticket -> ran.set(true));
+        Thread.sleep(50);
+
+        scheduler.cancelAll("a");
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertTrue(result.get().depth() < 64);
+        assertTrue(waiting.isCancelled());
+
+        // the thread is free again
+        CountDownLatch next = new CountDownLatch(1);
+        scheduler.submit("b", ANALYSIS, 1000, Long.MAX_VALUE, ticket -> next.countDown());
+        assertTrue(next.await(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+        assertEquals(2, scheduler.stats().cancelled());
+    }
+
+    @Test
+    void budgetIncludesTimeInQueue() throws Exception {
+        block();
+        AtomicLong remaining = new AtomicLong(-1);
+        CountDownLatch finished = new CountDownLatch(1);
+        scheduler.submit("a", HINT, 20, 5000, ticket -> {
+            remaining.set(ticket.limits(10).millis());
+            assertEquals(5000, ticket.limits(10).nodes());
+            finished.countDown();
+        });
+        Thread.sleep(50);
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(0, remaining.get());
+        assertEquals(1, scheduler.stats().late());
+        assertTrue(scheduler.stats().averageWaitMillis() > 0);
+    }
+
+    @Test
+    void keepsAThreadFreeOfPonders() throws Exception {
+        try (EngineScheduler pool = new EngineScheduler(2, 4)) {
+            CountDownLatch pondering = new CountDownLatch(1);
+            AtomicBoolean secondStarted = new AtomicBoolean();
+            CountDownLatch secondFinished = new CountDownLatch(1);
+            pool.submit("a", PONDER, Long.MAX_VALUE, Long.MAX_VALUE, ticket -> {
+                pondering.countDown();
+                release.await();
+            });
+            pool.submit("b", PONDER, Long.MAX_VALUE, Long.MAX_VALUE, ticket -> {
+                secondStarted.set(true);
+                secondFinished.countDown();
+            });
+            assertTrue(pondering.await(5, TimeUnit.SECONDS));
+
+            // the second ponder waits for the first, while a bot move runs at once
+            CountDownLatch moved = new CountDownLatch(1);
+            pool.submit("c", BOT_MOVE, 1000, Long.MAX_VALUE, ticket -> moved.countDown());
+            assertTrue(moved.await(5, TimeUnit.SECONDS));
+            assertFalse(secondStarted.get());
+            assertEquals(Integer.valueOf(1), pool.stats().queued().get(PONDER));
+
+            release.countDown();
+            assertTrue(secondFinished.await(5, TimeUnit.SECONDS));
+        }
+        // with one thread there is none to spare
+        ServiceException e = assertThrows(ServiceException.class,
+                () -> scheduler.submit("a", PONDER, Long.MAX_VALUE, Long.MAX_VALUE, ticket -> { }));
+        assertEquals(503, e.getStatusCode());
+    }
+
+    @Test
+    void survivesFailingJobs() throws Exception {
+        scheduler.submit("a", HINT, 1000, Long.MAX_VALUE, ticket -> {
+            throw new IllegalStateException("boom");
+        });
+        CountDownLatch next = new CountDownLatch(1);
+        scheduler.submit("a", HINT, 1000, Long.MAX_VALUE, ticket -> next.countDown());
+        assertTrue(next.await(5, TimeUnit.SECONDS));
+        assertEquals(1, scheduler.stats().failed());
+    }
+}
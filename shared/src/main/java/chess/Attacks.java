@@ -0,0 +1,243 @@
+package chess;
+
+/**
+ * Attack sets for each piece type, as bitboards.
+ * <p>
+ * Everything is a table lookup. Knight, king and pawn attacks, and the between/line
+ * masks used for pins and check evasions, are indexed by square. Bishop and rook
+ * attacks are indexed by square and by the blockers on the piece's lines, hashed to a
+ * dense index with precomputed magic multipliers. Setting the system property
+ * {@code chess.pext=true} indexes them with {@link Long#compress} instead, which is a
+ * single instruction on x86 CPUs with BMI2 but slow elsewhere.
+ */
+public final class Attacks {
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    private static final boolean PEXT = Boolean.getBoolean("chess.pext");
+
+    private static final Slider BISHOP = new Slider(new int[][]{{1, 1}, {1, -1}, {-1, 1}, {-1, -1}}, Slider.BISHOP_MAGICS);
+    private static final Slider ROOK = new Slider(new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}}, Slider.ROOK_MAGICS);
+
+    private static final int[][] KNIGHT_STEPS = {{1, 2}, {-1, 2}, {1, -2}, {-1, -2}, {2, 1}, {-2, 1}, {2, -1}, {-2, -1}};
+    private static final int[][] KING_STEPS = {{1, 1}, {-1, 1}, {-1, -1}, {1, -1}, {1, 0}, {0, -1}, {-1, 0}, {0, 1}};
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = steps(square, KNIGHT_STEPS);
+            KING[square] = steps(square, KING_STEPS);
+            PAWN[0][square] = steps(square, new int[][]{{1, -1}, {1, 1}});
+            PAWN[1][square] = steps(square, new int[][]{{-1, -1}, {-1, 1}});
+        }
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) {
+                    continue;
+                }
+                long ends = (1L << a) | (1L << b);
+                if ((rook(a, 0) & (1L << b)) != 0) {
+                    BETWEEN[a][b] = rook(a, 1L << b) & rook(b, 1L << a);
+                    LINE[a][b] = (rook(a, 0) & rook(b, 0)) | ends;
+                } else if ((bishop(a, 0) & (1L << b)) != 0) {
+                    BETWEEN[a][b] = bishop(a, 1L << b) & bishop(b, 1L << a);
+                    LINE[a][b] = (bishop(a, 0) & bishop(b, 0)) | ends;
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    private static long steps(int square, int[][] steps) {
+        long attacks = 0;
+        int row = square >>> 3;
+        int col = square & 7;
+        for (int[] step : steps) {
+            int r = row + step[0];
+            int c = col + step[1];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                attacks |= 1L << (r * 8 + c);
+            }
+        }
+        return attacks;
+    }
+
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color attacks from the square
+     */
+    public static long pawn(int color, int square) {
+        return PAWN[color][square];
+    }
+
+    /**
+     * @return the squares strictly between two squares on a shared rank, file or
+     * diagonal, or 0 if they are not aligned
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * @return the whole rank, file or diagonal through both squares, or 0 if they
+     * are not aligned
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    public static long bishop(int square, long occupied) {
+        return BISHOP.attacks(square, occupied);
+    }
+
+    public static long rook(int square, long occupied) {
+        return ROOK.attacks(square, occupied);
+    }
+
+    public static long queen(int square, long occupied) {
+        return BISHOP.attacks(square, occupied) | ROOK.attacks(square, occupied);
+    }
+
+    /**
+     * @return true if slider attacks are indexed with {@link Long#compress}
+     */
+    public static boolean usesPext() {
+        return PEXT;
+    }
+
+    /**
+     * Attack lookup for one kind of sliding piece. Each square owns a block of
+     * {@code 1 << bits} entries in a shared table, indexed by the occupancy of the
+     * square's relevant mask (its lines minus the board edges, since a blocker on the
+     * edge never changes the attack set).
+     */
+    private static final class Slider {
+        private final long[] masks = new long[64];
+        private final long[] magics;
+        private final int[] shifts = new int[64];
+        private final int[] offsets = new int[64];
+        private final long[] table;
+
+        Slider(int[][] directions, long[] magics) {
+            this.magics = magics;
+            int size = 0;
+            for (int square = 0; square < 64; square++) {
+                masks[square] = relevantMask(square, directions);
+                shifts[square] = 64 - Long.bitCount(masks[square]);
+                offsets[square] = size;
+                size += 1 << Long.bitCount(masks[square]);
+            }
+            table = new long[size];
+
+            for (int square = 0; square < 64; square++) {
+                // visit every subset of the mask with the carry-rippler trick
+                long occupied = 0;
+                do {
+                    table[offsets[square] + index(square, occupied)] = rays(square, occupied, directions);
+                    occupied = (occupied - masks[square]) & masks[square];
+                } while (occupied != 0);
+            }
+        }
+
+        long attacks(int square, long occupied) {
+            return table[offsets[square] + index(square, occupied)];
+        }
+
+        private int index(int square, long occupied) {
+            if (PEXT) {
+                return (int) Long.compress(occupied, masks[square]);
+            }
+            return (int) (((occupied & masks[square]) * magics[square]) >>> shifts[square]);
+        }
+
+        private static long relevantMask(int square, int[][] directions) {
+            long mask = 0;
+            for (int[] direction : directions) {
+                int row = (square >>> 3) + direction[0];
+                int col = (square & 7) + direction[1];
+                // stop one short of the edge in the direction of travel
+                while (row + direction[0] >= 0 && row + direction[0] < 8
+                        && col + direction[1] >= 0 && col + direction[1] < 8) {
+                    mask |= 1L << (row * 8 + col);
+                    row += direction[0];
+                    col += direction[1];
+                }
+            }
+            return mask;
+        }
+
+        /**
+         * Walks each ray from the square until the edge or a blocker; only used to
+         * build the table
+         */
+        private static long rays(int square, long occupied, int[][] directions) {
+            long attacks = 0;
+            for (int[] direction : directions) {
+                int row = (square >>> 3) + direction[0];
+                int col = (square & 7) + direction[1];
+                while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                    long bit = 1L << (row * 8 + col);
+                    attacks |= bit;
+                    if ((occupied & bit) != 0) {
+                        break;
+                    }
+                    row += direction[0];
+                    col += direction[1];
+                }
+            }
+            return attacks;
+        }
+
+        // multipliers that map every blocker subset of each square's mask to a slot of
+        // its block without two different attack sets colliding, found by trying
+        // sparse random numbers (the AND of three SplitMix64 outputs)
+        private static final long[] BISHOP_MAGICS = {
+                0x0248D000808C0081L, 0x00840800B4148004L, 0x1010011445060800L, 0x0008208020000002L,
+                0x2882021000004100L, 0x0002015008820041L, 0x8404209C10080100L, 0x0C0C420210322200L,
+                0x0100604210221082L, 0x0201100411240420L, 0x0080120400520000L, 0x0000082040490090L,
+                0x04000F1140052400L, 0x0500011508400001L, 0x0012004812082080L, 0x8000004404048200L,
+                0x86D0922005010800L, 0x0084800801680210L, 0x000800040121AA00L, 0x82C8202C04001400L,
+                0x1009000820081008L, 0xA402000020900820L, 0x0A1040220212A011L, 0x400040820200840CL,
+                0x0808400020C40990L, 0x0010020084081210L, 0x00042C0008080060L, 0x0460080018820540L,
+                0x0443011081004000L, 0x030800410080600AL, 0x0002088004008800L, 0x0000404080822808L,
+                0x802410400A840500L, 0x801C100204050C00L, 0x2241004801010800L, 0x1000040400280210L,
+                0x2068610040140040L, 0x08200105C0021800L, 0x0404010408004440L, 0x012C040282004050L,
+                0x000088080880420CL, 0x0806084404020210L, 0x0122101804080800L, 0x0000222019080800L,
+                0x0000012012010102L, 0x0001182503004810L, 0x0083300202000881L, 0x9207190302080900L,
+                0x80212B0812401000L, 0x002A010D11110400L, 0x0003148208190C24L, 0x1080020484044400L,
+                0x0004061020220801L, 0x0200408204410000L, 0x0442048102020004L, 0x00A1040106022080L,
+                0x0C00108410080408L, 0x0010860084040208L, 0x0200200200845102L, 0x0000210282104400L,
+                0x0080400210220A02L, 0x00900044B0426204L, 0x1022882204043400L, 0x008C20060C20A080L
+        };
+        private static final long[] ROOK_MAGICS = {
+                0xA080042310C00080L, 0x8240100240002004L, 0x4100200010400900L, 0x8100082005021000L,
+                0x3200042188020010L, 0x1200020010088401L, 0x0280060003000080L, 0x06000024010C8046L,
+                0x0001800180400020L, 0x4000808020004000L, 0x4000801000802004L, 0x050200100A002440L,
+                0x3001800800811400L, 0x4001000400090002L, 0x4022000804EA0009L, 0x0802000400A10042L,
+                0x3100308000400082L, 0x2840808040002000L, 0x9080410020041502L, 0xA00C210010000D00L,
+                0x002C828004004800L, 0x0004008004800200L, 0x4803640012081011L, 0x0080020000804401L,
+                0x0A20400080208000L, 0x2020002280400081L, 0x0210002020040800L, 0x0000100080080080L,
+                0x0000080080800400L, 0x0A04008080020004L, 0x1CA8700400086E25L, 0x1005000D00204182L,
+                0x2100400020800084L, 0x4C12010042002080L, 0xC046042082001040L, 0x0810800801801000L,
+                0x00C0080080800400L, 0x0002000802001004L, 0x0080011004000802L, 0x0001000081000042L,
+                0x208002A008484000L, 0x801C500020004000L, 0x0000200010008080L, 0x1410081200220040L,
+                0x0049080100110005L, 0x4002020004008080L, 0x0119500842040001L, 0x0200008100420004L,
+                0x0000800069400180L, 0x4001004010802100L, 0x0120001000208080L, 0x0009000821100500L,
+                0x2020810400080180L, 0x0040020004008080L, 0x0002D30228100400L, 0x0028010400408200L,
+                0x4012002881004012L, 0x4000400211016481L, 0x0001004109200411L, 0x00008500A0100009L,
+                0x0091001008000205L, 0x0C0A0008044110A2L, 0x000A000C210800C2L, 0x08A000402110840AL
+        };
+    }
+}
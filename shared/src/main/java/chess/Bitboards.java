@@ -0,0 +1,78 @@
+package chess;
+
+/**
+ * Square, mask and piece-code helpers shared by the bitboard board representation.
+ * <p>
+ * Squares are numbered 0 (a1) to 63 (h8), rank by rank, so square = (row - 1) * 8 + (column - 1).
+ * Pieces are packed as color * 6 + type ordinal, giving the twelve indices used for the board's piece sets.
+ */
+public final class Bitboards {
+
+    public static final int EMPTY = -1;
+    public static final int PIECE_TYPES = 6;
+    public static final int PIECE_CODES = 12;
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private static final ChessPiece.PieceType[] PIECE_TYPE_VALUES = ChessPiece.PieceType.values();
+
+    private Bitboards() {
+    }
+
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the position is off the board
+     */
+    public static int square(ChessPosition position) {
+        if (ChessPosition.invalidPosition(position.getRow(), position.getColumn())) {
+            throw new IllegalArgumentException("Position off the board: " + position);
+        }
+        return square(position.getRow(), position.getColumn());
+    }
+
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static ChessPosition position(int square) {
+        return ChessPosition.of(square);
+    }
+
+    public static int piece(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * PIECE_TYPES + type.ordinal();
+    }
+
+    public static int piece(int color, int type) {
+        return color * PIECE_TYPES + type;
+    }
+
+    public static int colorOf(int piece) {
+        return piece >= PIECE_TYPES ? 1 : 0;
+    }
+
+    public static int typeOf(int piece) {
+        return piece >= PIECE_TYPES ? piece - PIECE_TYPES : piece;
+    }
+
+    public static ChessGame.TeamColor teamColor(int color) {
+        return color == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    public static ChessPiece.PieceType pieceType(int type) {
+        return PIECE_TYPE_VALUES[type];
+    }
+}
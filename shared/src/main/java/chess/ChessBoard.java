@@ -1,19 +1,65 @@
 package chess;
 
+import java.util.Arrays;
+
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * The board is stored as twelve bitboards, one per color and piece type, plus an
+ * occupancy mask per team, a Zobrist key of the placement, and the
+ * {@link PieceSquareTables} score and game phase of the placement. The
+ * {@link ChessPosition}/{@link ChessPiece} methods are a compatibility view over that
+ * representation; engine code should use the square-indexed methods (see
+ * {@link Bitboards} for the square and piece numbering).
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
 public class ChessBoard {
 
-    private ChessPiece[][] board = new ChessPiece[8][8];
+    private static final ChessPiece.PieceType[] BACK_RANK = {
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK
+    };
+
+    private static final int KING = ChessPiece.PieceType.KING.ordinal();
+    private static final int QUEEN = ChessPiece.PieceType.QUEEN.ordinal();
+    private static final int BISHOP = ChessPiece.PieceType.BISHOP.ordinal();
+    private static final int KNIGHT = ChessPiece.PieceType.KNIGHT.ordinal();
+    private static final int ROOK = ChessPiece.PieceType.ROOK.ordinal();
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+
+    private final long[] pieceSets = new long[Bitboards.PIECE_CODES];
+    private final long[] teamSets = new long[2];
+    private long key;
+    private int psqtScore;
+    private int phase;
 
     public ChessBoard() {
 
     }
 
+    /**
+     * Creates an independent copy of another board
+     *
+     * @param other the board to copy
+     */
+    public ChessBoard(ChessBoard other) {
+        copyFrom(other);
+    }
+
+    /**
+     * Makes this board a copy of another without allocating
+     */
+    void copyFrom(ChessBoard other) {
+        System.arraycopy(other.pieceSets, 0, pieceSets, 0, pieceSets.length);
+        System.arraycopy(other.teamSets, 0, teamSets, 0, teamSets.length);
+        key = other.key;
+        psqtScore = other.psqtScore;
+        phase = other.phase;
+    }
+
     /**
      * Adds a chess piece to the chessboard
      *
@@ -21,7 +67,11 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        board[position.getRow() - 1][position.getColumn() - 1] = piece;
+        int square = Bitboards.square(position);
+        clearSquare(square);
+        if (piece != null) {
+            addPiece(square, Bitboards.piece(piece.getTeamColor(), piece.getPieceType()));
+        }
     }
 
     /**
@@ -32,12 +82,169 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return board[position.getRow() - 1][position.getColumn() - 1];
+        int piece = pieceAt(Bitboards.square(position));
+        return piece == Bitboards.EMPTY ? null : ChessPiece.of(piece);
     }
 
     //removes piece from position passed in off of the board
     public void removePiece(ChessPosition position) {
-        board[position.getRow() - 1][position.getColumn() - 1] = null;
+        clearSquare(Bitboards.square(position));
+    }
+
+    /**
+     * Places a piece on an empty square
+     *
+     * @param square the square index to place the piece on
+     * @param piece  the piece code, as built by {@link Bitboards#piece(int, int)}
+     */
+    public void addPiece(int square, int piece) {
+        long bit = 1L << square;
+        pieceSets[piece] |= bit;
+        teamSets[Bitboards.colorOf(piece)] |= bit;
+        key ^= Zobrist.piece(piece, square);
+        psqtScore += PieceSquareTables.value(piece, square);
+        phase += PieceSquareTables.phase(piece);
+    }
+
+    /**
+     * Removes a known piece from a square
+     *
+     * @param square the square index the piece is on
+     * @param piece  the piece code currently on that square
+     */
+    public void removePiece(int square, int piece) {
+        long bit = 1L << square;
+        pieceSets[piece] &= ~bit;
+        teamSets[Bitboards.colorOf(piece)] &= ~bit;
+        key ^= Zobrist.piece(piece, square);
+        psqtScore -= PieceSquareTables.value(piece, square);
+        phase -= PieceSquareTables.phase(piece);
+    }
+
+    /**
+     * @return the piece code on the square, or {@link Bitboards#EMPTY}
+     */
+    public int pieceAt(int square) {
+        long bit = 1L << square;
+        int base;
+        if ((teamSets[0] & bit) != 0) {
+            base = 0;
+        } else if ((teamSets[1] & bit) != 0) {
+            base = Bitboards.PIECE_TYPES;
+        } else {
+            return Bitboards.EMPTY;
+        }
+        for (int piece = base; piece < base + Bitboards.PIECE_TYPES; piece++) {
+            if ((pieceSets[piece] & bit) != 0) {
+                return piece;
+            }
+        }
+        return Bitboards.EMPTY;
+    }
+
+    public long pieces(int piece) {
+        return pieceSets[piece];
+    }
+
+    public long pieces(ChessGame.TeamColor team, ChessPiece.PieceType type) {
+        return pieceSets[Bitboards.piece(team, type)];
+    }
+
+    public long teamPieces(int color) {
+        return teamSets[color];
+    }
+
+    public long teamPieces(ChessGame.TeamColor team) {
+        return teamSets[team.ordinal()];
+    }
+
+    public long occupied() {
+        return teamSets[0] | teamSets[1];
+    }
+
+    /**
+     * @return the Zobrist key of the piece placement, kept up to date by every
+     * add and remove
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * @return the sum of the {@link PieceSquareTables} values of every piece, packed
+     * and from white's side, kept up to date by every add and remove
+     */
+    public int psqtScore() {
+        return psqtScore;
+    }
+
+    /**
+     * @return the sum of the {@link PieceSquareTables} phase weights of every piece
+     */
+    public int phase() {
+        return phase;
+    }
+
+    /**
+     * @return the square of the team's king, or -1 if it has none
+     */
+    public int kingSquare(int color) {
+        long king = pieceSets[Bitboards.piece(color, KING)];
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Determines if any piece of a team attacks a square, by looking outwards from the
+     * square with each piece type's attack pattern
+     *
+     * @param square  the square index to test
+     * @param byColor the color index of the attacking team
+     * @return True if the square is attacked
+     */
+    public boolean isSquareAttacked(int square, int byColor) {
+        int base = byColor * Bitboards.PIECE_TYPES;
+        if ((Attacks.pawn(byColor ^ 1, square) & pieceSets[base + PAWN]) != 0
+                || (Attacks.knight(square) & pieceSets[base + KNIGHT]) != 0
+                || (Attacks.king(square) & pieceSets[base + KING]) != 0) {
+            return true;
+        }
+        long occupied = occupied();
+        long queens = pieceSets[base + QUEEN];
+        return (Attacks.bishop(square, occupied) & (pieceSets[base + BISHOP] | queens)) != 0
+                || (Attacks.rook(square, occupied) & (pieceSets[base + ROOK] | queens)) != 0;
+    }
+
+    /**
+     * @return every piece of either team that attacks the square, given an occupancy
+     */
+    public long attackersTo(int square, long occupied) {
+        long queens = pieceSets[QUEEN] | pieceSets[Bitboards.PIECE_TYPES + QUEEN];
+        return (Attacks.pawn(1, square) & pieceSets[PAWN])
+                | (Attacks.pawn(0, square) & pieceSets[Bitboards.PIECE_TYPES + PAWN])
+                | (Attacks.knight(square) & (pieceSets[KNIGHT] | pieceSets[Bitboards.PIECE_TYPES + KNIGHT]))
+                | (Attacks.king(square) & (pieceSets[KING] | pieceSets[Bitboards.PIECE_TYPES + KING]))
+                | (Attacks.bishop(square, occupied)
+                & (pieceSets[BISHOP] | pieceSets[Bitboards.PIECE_TYPES + BISHOP] | queens))
+                | (Attacks.rook(square, occupied)
+                & (pieceSets[ROOK] | pieceSets[Bitboards.PIECE_TYPES + ROOK] | queens));
+    }
+
+    private void clearSquare(int square) {
+        int piece = pieceAt(square);
+        if (piece != Bitboards.EMPTY) {
+            removePiece(square, piece);
+        }
+    }
+
+    /**
+     * Removes every piece from the board
+     */
+    public void clear() {
+        Arrays.fill(pieceSets, 0L);
+        Arrays.fill(teamSets, 0L);
+        key = 0;
+        psqtScore = 0;
+        phase = 0;
     }
 
     /**
@@ -45,26 +252,16 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                board[row][col] = null;
-            }
-        }
+        clear();
 
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(2, col), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-            addPiece(new ChessPosition(7, col), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(Bitboards.square(2, col), Bitboards.piece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(Bitboards.square(7, col), Bitboards.piece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
 
-        ChessPiece.PieceType[] order = {
-                ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
-                ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING,
-                ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK
-        };
-
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(1, col), new ChessPiece(ChessGame.TeamColor.WHITE, order[col - 1]));
-            addPiece(new ChessPosition(8, col), new ChessPiece(ChessGame.TeamColor.BLACK, order[col - 1]));
+            addPiece(Bitboards.square(1, col), Bitboards.piece(ChessGame.TeamColor.WHITE, BACK_RANK[col - 1]));
+            addPiece(Bitboards.square(8, col), Bitboards.piece(ChessGame.TeamColor.BLACK, BACK_RANK[col - 1]));
         }
     }
 
@@ -78,26 +275,16 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                ChessPiece thisPiece = this.board[row][col];
-                ChessPiece thatPiece = that.board[row][col];
-                if (thisPiece == null && thatPiece != null || thisPiece != null && !thisPiece.equals(thatPiece)) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return key == that.key && Arrays.equals(pieceSets, that.pieceSets);
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (int row = 7; row >= 0; row--) {
-            for (int col = 0; col < 8; col++) {
-                ChessPiece piece = board[row][col];
-                sb.append(piece == null ? "." : piece.toString());
+        for (int row = 8; row >= 1; row--) {
+            for (int col = 1; col <= 8; col++) {
+                int piece = pieceAt(Bitboards.square(row, col));
+                sb.append(piece == Bitboards.EMPTY ? "." : ChessPiece.of(piece).toString());
                 sb.append(" ");
             }
             sb.append("\n");
@@ -107,14 +294,7 @@ public class ChessBoard {
 
     @Override
     public int hashCode() {
-        int result = 17;
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                ChessPiece piece = board[row][col];
-                result = 31 * result + (piece != null ? piece.hashCode() : 0);
-            }
-        }
-        return result;
+        return Long.hashCode(key);
     }
 
 
@@ -1,6 +1,8 @@
 package chess;
 
-import java.util.ArrayList;
+import com.google.gson.annotations.JsonAdapter;
+
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -9,9 +11,79 @@ import java.util.Collection;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(GameCodec.GsonAdapterFactory.class)
 public class ChessGame {
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    // the state int packs castling rights (bits 0-3), the en passant square + 1 or 0
+    // (bits 4-10), the halfmove clock (bits 11-18) and the fullmove number (bits 19-31)
+    private static final int CASTLING_MASK = 0xF;
+    private static final int EN_PASSANT_SHIFT = 4;
+    private static final int HALFMOVE_SHIFT = 11;
+    private static final int FULLMOVE_SHIFT = 19;
+    private static final int MAX_HALFMOVES = 0xFF;
+    private static final int MAX_FULLMOVES = 0x1FFF;
+    private static final int INITIAL_STATE = CASTLING_MASK | (1 << FULLMOVE_SHIFT);
+
+    // the castling rights that survive a move from or to each square
+    private static final int[] CASTLING_KEPT = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_KEPT, CASTLING_MASK);
+        CASTLING_KEPT[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_KEPT[7] &= ~WHITE_KINGSIDE;
+        CASTLING_KEPT[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_KEPT[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_KEPT[63] &= ~BLACK_KINGSIDE;
+        CASTLING_KEPT[56] &= ~BLACK_QUEENSIDE;
+    }
+
+    private static final int HISTORY_INITIAL_CAPACITY = 16;
+    private static final int FIFTY_MOVE_HALFMOVES = 100;
+
+    private static final int UNDO_INITIAL_CAPACITY = 64;
+    private static final long UNDO_MOVE_MASK = (1L << 20) - 1;
+    private static final int UNDO_MOVING_SHIFT = 20;
+    private static final int UNDO_CAPTURED_SHIFT = 24;
+    private static final int UNDO_STATE_SHIFT = 28;
+
+    private static final int KING = ChessPiece.PieceType.KING.ordinal();
+    private static final int ROOK = ChessPiece.PieceType.ROOK.ordinal();
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+
+    // FEN letters indexed by piece code, and by castling right bit
+    private static final String FEN_PIECES = "KQBNRPkqbnrp";
+    private static final String FEN_CASTLING = "KQkq";
+    // piece code by ASCII FEN letter, or -1
+    private static final byte[] FEN_PIECE_CODES = new byte[128];
+
+    static {
+        Arrays.fill(FEN_PIECE_CODES, (byte) -1);
+        for (int piece = 0; piece < FEN_PIECES.length(); piece++) {
+            FEN_PIECE_CODES[FEN_PIECES.charAt(piece)] = (byte) piece;
+        }
+    }
+
     private ChessBoard board;
     private TeamColor teamTurn;
+    private int state = INITIAL_STATE;
+    // keys of the positions before each move, oldest first; only the last
+    // halfmoveClock() entries can repeat the current position
+    private long[] history = new long[HISTORY_INITIAL_CAPACITY];
+    private int historySize;
+    private final transient MoveList moveScratch = new MoveList();
+    // every legal move of the team to move and the resulting status, valid while the
+    // position key still equals legalKey and status is not null
+    private final transient MoveList legal = new MoveList();
+    private transient long legalKey;
+    private transient GameStatus status;
+    private transient long[] undoStack = new long[UNDO_INITIAL_CAPACITY];
+    private transient int ply;
+    // where loadFen builds and checks a position before taking it
+    private transient ChessBoard fenBoard;
 
     public ChessGame() {
         this.board = new ChessBoard();
@@ -19,6 +91,23 @@ public class ChessGame {
         board.resetBoard();
     }
 
+    /**
+     * Creates an independent copy of another game's position, so it can be searched
+     * on another thread. The copy has no moves to take back.
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        this.board = new ChessBoard(other.board);
+        this.teamTurn = other.teamTurn;
+        this.state = other.state;
+        // only positions since the last irreversible move can recur
+        int keep = other.repetitionWindow();
+        this.history = new long[Math.max(keep, HISTORY_INITIAL_CAPACITY)];
+        System.arraycopy(other.history, other.historySize - keep, history, 0, keep);
+        this.historySize = keep;
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -33,6 +122,7 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         teamTurn = team;
+        status = null;
     }
 
     public TeamColor opponentTeam(TeamColor color) {
@@ -51,68 +141,250 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        ChessPiece piece = board.getPiece(startPosition);
-        if (piece == null) {
+        int square = Bitboards.square(startPosition);
+        int piece = board.pieceAt(square);
+        if (piece == Bitboards.EMPTY) {
             return null;
         }
-        TeamColor team = piece.getTeamColor();
-        Collection<ChessMove> allMoves = piece.pieceMoves(board, startPosition);
-        Collection<ChessMove> validMoves = new ArrayList<>();
-
-        for (ChessMove move : allMoves) {
-            testMove(startPosition, move, piece, validMoves, team);
+        if (Bitboards.colorOf(piece) != teamTurn.ordinal()) {
+            legalMoves(square, moveScratch);
+            return Move.toChessMoves(moveScratch);
         }
+        // the team to move: pick this piece's moves out of the cached list
+        refreshStatus();
+        moveScratch.clear();
+        for (int i = 0; i < legal.size(); i++) {
+            if (Move.from(legal.get(i)) == square) {
+                moveScratch.add(legal.get(i));
+            }
+        }
+        return Move.toChessMoves(moveScratch);
+    }
 
-        return validMoves;
+    /**
+     * Fills a move list with the legal moves of the piece on a square
+     *
+     * @param square the square index of the piece
+     * @param moves  the list to fill; it is cleared first
+     * @return false if the square is empty
+     */
+    public boolean legalMoves(int square, MoveList moves) {
+        moves.clear();
+        return MoveGenerator.generateLegal(board, square, castlingRights(), enPassantSquare(), moves);
+    }
+
+    /**
+     * Fills a move list with every legal move for the team whose turn it is
+     *
+     * @param moves the list to fill; it is cleared first
+     */
+    public void legalMoves(MoveList moves) {
+        moves.clear();
+        MoveGenerator.generateAllLegal(board, teamTurn.ordinal(), castlingRights(), enPassantSquare(), moves);
+    }
+
+    private boolean isLegal(int move, int color) {
+        makeMove(move);
+        boolean notInCheck = !isInCheck(color);
+        unmakeMove();
+        return notInCheck;
     }
 
     public void testMove(ChessPosition startPosition, ChessMove move, ChessPiece piece, Collection<ChessMove> validMoves, TeamColor team) {
-        ChessPosition end = move.getEndPosition();
-        ChessPiece newPiece = board.getPiece(end);
-        movePiece(startPosition, end, move, piece);
-        boolean notInCheck = !isInCheck(team);
-        board.removePiece(end);
-        board.addPiece(startPosition, piece);
-        if (newPiece != null) {
-            board.addPiece(end, newPiece);
-        }
-        if (notInCheck) {
+        if (isLegal(Move.fromChessMove(move), team.ordinal())) {
             validMoves.add(move);
         }
     }
 
     public void movePiece(ChessPosition startPosition, ChessPosition endPosition, ChessMove move, ChessPiece piece) {
-        board.removePiece(startPosition);
-        board.removePiece(endPosition);
+        int encoded = Move.fromChessMove(move);
+        int moving = board.pieceAt(Move.from(encoded));
+        movePieces(encoded, moving, board.pieceAt(Move.to(encoded)));
+    }
 
-        ChessPiece.PieceType promotionPiece = move.getPromotionPiece();
-        if (promotionPiece != null) {
-            board.addPiece(endPosition, new ChessPiece(piece.getTeamColor(), promotionPiece));
-        } else {
-            board.addPiece(endPosition, piece);
+    private void movePieces(int move, int moving, int captured) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        board.removePiece(from, moving);
+        if (captured != Bitboards.EMPTY) {
+            board.removePiece(capturedSquare(move, moving), captured);
         }
+        board.addPiece(to, placedPiece(moving, move));
+        if (Move.isCastle(move)) {
+            int rook = Bitboards.piece(Bitboards.colorOf(moving), ROOK);
+            board.removePiece(castlingRookFrom(to), rook);
+            board.addPiece(castlingRookTo(to), rook);
+        }
+    }
+
+    private static int capturedSquare(int move, int moving) {
+        int to = Move.to(move);
+        if (!Move.isEnPassant(move)) {
+            return to;
+        }
+        return Bitboards.colorOf(moving) == 0 ? to - 8 : to + 8;
+    }
+
+    private static int castlingRookFrom(int kingTo) {
+        return (kingTo & 7) == 6 ? kingTo + 1 : kingTo - 2;
+    }
+
+    private static int castlingRookTo(int kingTo) {
+        return (kingTo & 7) == 6 ? kingTo - 1 : kingTo + 1;
+    }
+
+    private static int placedPiece(int moving, int move) {
+        if (!Move.isPromotion(move)) {
+            return moving;
+        }
+        return Bitboards.piece(Bitboards.colorOf(moving), Move.promotion(move));
+    }
+
+    /**
+     * Plays a generated move in place and records how to take it back.
+     * <p>
+     * The move is not validated; it must come from the move generator for the
+     * team whose turn it is. Pair every call with {@link #unmakeMove()}.
+     *
+     * @param move the encoded move to play
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int moving = board.pieceAt(from);
+        int captured = board.pieceAt(capturedSquare(move, moving));
+        pushHistory();
+        movePieces(move, moving, captured);
+        status = null;
+
+        if (ply == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, ply * 2);
+        }
+        undoStack[ply++] = (move & UNDO_MOVE_MASK)
+                | ((long) moving << UNDO_MOVING_SHIFT)
+                | ((long) (captured + 1) << UNDO_CAPTURED_SHIFT)
+                | ((state & 0xFFFFFFFFL) << UNDO_STATE_SHIFT);
+
+        int halfmoves = Bitboards.typeOf(moving) == PAWN || captured != Bitboards.EMPTY
+                ? 0 : Math.min(halfmoveClock() + 1, MAX_HALFMOVES);
+        int fullmoves = teamTurn == TeamColor.BLACK ? Math.min(fullmoveNumber() + 1, MAX_FULLMOVES) : fullmoveNumber();
+        state = packState(state & CASTLING_KEPT[from] & CASTLING_KEPT[to],
+                Move.isDoublePush(move) ? (from + to) >>> 1 : -1, halfmoves, fullmoves);
+        teamTurn = opponentTeam(teamTurn);
+    }
+
+    /**
+     * Takes back the last move played with {@link #makeMove(int)}
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        if (ply == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        long record = undoStack[--ply];
+        int move = (int) (record & UNDO_MOVE_MASK);
+        int moving = (int) ((record >>> UNDO_MOVING_SHIFT) & 15);
+        int captured = (int) ((record >>> UNDO_CAPTURED_SHIFT) & 15) - 1;
+        int from = Move.from(move);
+        int to = Move.to(move);
+
+        teamTurn = opponentTeam(teamTurn);
+        state = (int) (record >>> UNDO_STATE_SHIFT);
+        historySize--;
+        status = null;
+        if (Move.isCastle(move)) {
+            int rook = Bitboards.piece(Bitboards.colorOf(moving), ROOK);
+            board.removePiece(castlingRookTo(to), rook);
+            board.addPiece(castlingRookFrom(to), rook);
+        }
+        board.removePiece(to, placedPiece(moving, move));
+        if (captured != Bitboards.EMPTY) {
+            board.addPiece(capturedSquare(move, moving), captured);
+        }
+        board.addPiece(from, moving);
+    }
+
+    private void pushHistory() {
+        // with nothing left to unmake, positions before the last irreversible move can
+        // never be reached again
+        if (ply == 0 && historySize > halfmoveClock()) {
+            int keep = halfmoveClock();
+            System.arraycopy(history, historySize - keep, history, 0, keep);
+            historySize = keep;
+        }
+        if (historySize == history.length) {
+            history = Arrays.copyOf(history, Math.max(HISTORY_INITIAL_CAPACITY, historySize * 2));
+        }
+        history[historySize++] = positionKey();
+    }
+
+    /**
+     * @return how many moves can currently be taken back with {@link #unmakeMove()}
+     */
+    public int undoDepth() {
+        return ply;
     }
 
     /**
-     * Makes a move in a chess game
+     * Makes a move in a chess game, then works out the new {@link #getStatus() status}
+     * so it is ready for the next move and for status queries.
+     * <p>
+     * A move that resets the halfmove clock cannot be taken back: no earlier position
+     * can recur after it, so the undo records and position history are dropped there.
+     * That keeps a long game's bookkeeping to the moves since its last capture or pawn
+     * move.
      *
      * @param move chess move to perform
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        ChessPosition startPosition = move.getStartPosition();
-        ChessPiece piece = board.getPiece(move.getStartPosition());
-
-        if (piece == null || piece.getTeamColor() != teamTurn) {
-            throw new InvalidMoveException();
+        int encoded;
+        try {
+            encoded = Move.fromChessMove(move);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidMoveException(e.getMessage());
         }
-        Collection<ChessMove> validMoves = validMoves(startPosition);
-        if (validMoves == null || !validMoves.contains(move)) {
+        refreshStatus();
+        int legalMove = legal.find(encoded);
+        if (legalMove == Move.NONE) {
             throw new InvalidMoveException();
         }
 
-        movePiece(startPosition, move.getEndPosition(), move, piece);
-        setTeamTurn(opponentTeam(teamTurn));
+        makeMove(legalMove);
+        if (halfmoveClock() == 0) {
+            ply = 0;
+            historySize = 0;
+        }
+        refreshStatus();
+    }
+
+    /**
+     * Gets the state of the game for the team whose turn it is. It is computed once
+     * per position, along with the list of legal moves that validates the next move.
+     *
+     * @return the game status
+     */
+    public GameStatus getStatus() {
+        refreshStatus();
+        return status;
+    }
+
+    private void refreshStatus() {
+        long key = positionKey();
+        if (status != null && legalKey == key) {
+            return;
+        }
+        legalMoves(legal);
+        legalKey = key;
+        boolean inCheck = isInCheck(teamTurn.ordinal());
+        if (legal.isEmpty()) {
+            status = inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        } else if (isDraw()) {
+            status = GameStatus.DRAW;
+        } else {
+            status = inCheck ? GameStatus.CHECK : GameStatus.ONGOING;
+        }
     }
 
     /**
@@ -122,23 +394,12 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ArrayList<ChessPosition> kingPosition = ChessPiece.findPiecePositionsForTeam(ChessPiece.PieceType.KING, board, teamColor);
-        if (kingPosition.isEmpty()) {
-            return false;
-        }
+        return isInCheck(teamColor.ordinal());
+    }
 
-        ChessPosition kingPos = kingPosition.getFirst();
-        ArrayList<ChessPosition> opponentPieces = ChessPiece.findTeamPositions(board, opponentTeam(teamColor));
-        for (ChessPosition pos : opponentPieces) {
-            ChessPiece piece = board.getPiece(pos);
-            Collection<ChessMove> moves = piece.pieceMoves(board, pos);
-            for (ChessMove move : moves) {
-                if (move.getEndPosition().equals(kingPos)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    private boolean isInCheck(int color) {
+        int kingSquare = board.kingSquare(color);
+        return kingSquare >= 0 && board.isSquareAttacked(kingSquare, color ^ 1);
     }
 
     /**
@@ -148,40 +409,10 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        if (!isInCheck(teamColor)) {
-            return false;
+        if (teamColor == teamTurn) {
+            return getStatus() == GameStatus.CHECKMATE;
         }
-        ArrayList<ChessPosition> positions = ChessPiece.findTeamPositions(board, teamColor);
-        for (ChessPosition pos : positions) {
-            ChessPiece piece = board.getPiece(pos);
-            Collection<ChessMove> moves = piece.pieceMoves(board, pos);
-            for (ChessMove move : moves) {
-                ChessPiece newPiece = board.getPiece(move.getEndPosition());
-                board.removePiece(pos);
-                board.removePiece(move.getEndPosition());
-
-                if (move.getPromotionPiece() != null) {
-                    ChessPiece movedPiece = new ChessPiece(piece.getTeamColor(), move.getPromotionPiece());
-                    board.addPiece(move.getEndPosition(), movedPiece);
-                } else {
-                    board.addPiece(move.getEndPosition(), piece);
-                }
-
-                boolean stillInCheck = isInCheck(teamColor);
-
-                board.removePiece(move.getEndPosition());
-                board.addPiece(pos, piece);
-                if (newPiece != null) {
-                    board.addPiece(move.getEndPosition(), newPiece);
-                }
-
-                if (!stillInCheck) {
-                    return false;
-                }
-
-            }
-        }
-        return true;
+        return isInCheck(teamColor) && !hasValidMove(teamColor);
     }
 
     /**
@@ -192,17 +423,16 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            return false;
-        }
-        ArrayList<ChessPosition> positions = ChessPiece.findTeamPositions(board, teamColor);
-        for (ChessPosition pos : positions) {
-            Collection<ChessMove> moves = (validMoves(pos));
-            if (moves != null && !moves.isEmpty()) {
-                return false;
-            }
+        if (teamColor == teamTurn) {
+            return getStatus() == GameStatus.STALEMATE;
         }
-        return true;
+        return !isInCheck(teamColor) && !hasValidMove(teamColor);
+    }
+
+    private boolean hasValidMove(TeamColor teamColor) {
+        moveScratch.clear();
+        MoveGenerator.generateAllLegal(board, teamColor.ordinal(), castlingRights(), enPassantSquare(), moveScratch);
+        return !moveScratch.isEmpty();
     }
 
     /**
@@ -215,12 +445,460 @@ public class ChessGame {
     }
 
     /**
-     * Sets this game's chessboard with a given board
+     * Sets this game's chessboard with a given board. Castling rights are given to
+     * every king and rook still on their starting squares, and the en passant square
+     * and move counters are reset.
      *
      * @param board the new board to use
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        this.ply = 0;
+        this.state = packState(inferCastlingRights(board), -1, 0, 1);
+        this.historySize = 0;
+        this.status = null;
+    }
+
+    private static int inferCastlingRights(ChessBoard board) {
+        int rights = 0;
+        for (int color = 0; color < 2; color++) {
+            int home = color == 0 ? 4 : 60;
+            long rooks = board.pieces(Bitboards.piece(color, ROOK));
+            if (board.kingSquare(color) != home) {
+                continue;
+            }
+            if ((rooks & (1L << (home + 3))) != 0) {
+                rights |= color == 0 ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+            }
+            if ((rooks & (1L << (home - 4))) != 0) {
+                rights |= color == 0 ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+            }
+        }
+        return rights;
+    }
+
+    private static int packState(int castling, int enPassant, int halfmoves, int fullmoves) {
+        return (castling & CASTLING_MASK)
+                | ((enPassant + 1) << EN_PASSANT_SHIFT)
+                | (halfmoves << HALFMOVE_SHIFT)
+                | (fullmoves << FULLMOVE_SHIFT);
+    }
+
+    /**
+     * @return the castling rights still held, as a bit set of {@link #WHITE_KINGSIDE},
+     * {@link #WHITE_QUEENSIDE}, {@link #BLACK_KINGSIDE} and {@link #BLACK_QUEENSIDE}.
+     * A right is lost once its king or rook moves or the rook is captured.
+     */
+    public int castlingRights() {
+        return state & CASTLING_MASK;
+    }
+
+    /**
+     * @return the square a pawn skipped with a double push on the last move, or -1
+     */
+    public int enPassantSquare() {
+        return ((state >>> EN_PASSANT_SHIFT) & 0x7F) - 1;
+    }
+
+    /**
+     * @return the number of moves since the last capture or pawn move
+     */
+    public int halfmoveClock() {
+        return (state >>> HALFMOVE_SHIFT) & MAX_HALFMOVES;
+    }
+
+    /**
+     * @return the move number, starting at 1 and incremented after each black move
+     */
+    public int fullmoveNumber() {
+        return state >>> FULLMOVE_SHIFT;
+    }
+
+    /**
+     * Creates a game at the position described by a FEN record
+     *
+     * @param fen the record, see {@link #loadFen(CharSequence)}
+     * @return the new game
+     */
+    public static ChessGame fromFen(CharSequence fen) {
+        ChessGame game = new ChessGame();
+        game.loadFen(fen);
+        return game;
+    }
+
+    /**
+     * Sets up the position described by a FEN record, reusing this game's board. The
+     * halfmove clock and fullmove number may be left off, as in EPD, and default to 0
+     * and 1. Castling rights whose king or rook is not on its starting square are
+     * dropped. The moves played so far are forgotten.
+     * <p>
+     * The record is read in place without allocating, so a single game can be
+     * reloaded with many positions cheaply.
+     *
+     * @param fen the record, such as
+     *            {@code rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1}
+     * @throws IllegalArgumentException if the record is malformed or describes a
+     *                                  position no game can reach, in which case the
+     *                                  game is left unchanged
+     */
+    public void loadFen(CharSequence fen) {
+        if (fenBoard == null) {
+            fenBoard = new ChessBoard();
+        }
+        // built aside, so a bad record cannot leave a half-built board
+        fenBoard.clear();
+        int i = nextField(fen, parsePlacement(fen, skipSpaces(fen, 0), fenBoard), "side to move");
+
+        TeamColor turn;
+        char side = fen.charAt(i++);
+        if (side == 'w') {
+            turn = TeamColor.WHITE;
+        } else if (side == 'b') {
+            turn = TeamColor.BLACK;
+        } else {
+            throw malformedFen(fen, "side to move must be 'w' or 'b'");
+        }
+        i = nextField(fen, endOfField(fen, i, "side to move"), "castling rights");
+
+        int castling = 0;
+        if (fen.charAt(i) == '-') {
+            i++;
+        } else {
+            for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+                int right = FEN_CASTLING.indexOf(fen.charAt(i));
+                if (right < 0 || (castling & (1 << right)) != 0) {
+                    throw malformedFen(fen, "bad castling rights");
+                }
+                castling |= 1 << right;
+            }
+        }
+        i = nextField(fen, endOfField(fen, i, "castling rights"), "en passant square");
+
+        int enPassant = -1;
+        if (fen.charAt(i) == '-') {
+            i++;
+        } else {
+            int file = fen.charAt(i) - 'a';
+            int rank = i + 1 < fen.length() ? fen.charAt(i + 1) - '1' : -1;
+            if (file < 0 || file > 7 || rank != (turn == TeamColor.WHITE ? 5 : 2)) {
+                throw malformedFen(fen, "bad en passant square");
+            }
+            enPassant = rank * 8 + file;
+            i += 2;
+        }
+        i = skipSpaces(fen, endOfField(fen, i, "en passant square"));
+
+        int halfmoves = 0;
+        int fullmoves = 1;
+        if (i < fen.length()) {
+            int end = endOfNumber(fen, i, "halfmove clock");
+            halfmoves = parseCount(fen, i, end, MAX_HALFMOVES);
+            i = skipSpaces(fen, end);
+            end = endOfNumber(fen, i, "fullmove number");
+            fullmoves = Math.max(1, parseCount(fen, i, end, MAX_FULLMOVES));
+            i = skipSpaces(fen, end);
+            if (i < fen.length()) {
+                throw malformedFen(fen, "unexpected text after the fullmove number");
+            }
+        }
+
+        checkReachable(fen, fenBoard, turn, enPassant);
+
+        if (board == null) {
+            board = new ChessBoard();
+        }
+        board.copyFrom(fenBoard);
+        teamTurn = turn;
+        state = packState(castling & inferCastlingRights(board), enPassant, halfmoves, fullmoves);
+        ply = 0;
+        historySize = 0;
+        status = null;
+    }
+
+    /**
+     * Rejects positions the move generator cannot handle because no game reaches them:
+     * a team without exactly one king, the team not to move in check, or an en passant
+     * square that no double push just passed
+     */
+    private static void checkReachable(CharSequence fen, ChessBoard board, TeamColor turn, int enPassant) {
+        for (int color = 0; color < 2; color++) {
+            if (Long.bitCount(board.pieces(Bitboards.piece(color, KING))) != 1) {
+                throw malformedFen(fen, TeamColor.values()[color].name().toLowerCase() + " must have one king");
+            }
+        }
+        int waiting = turn.ordinal() ^ 1;
+        if (board.isSquareAttacked(board.kingSquare(waiting), turn.ordinal())) {
+            throw malformedFen(fen, "the side not to move is in check");
+        }
+        if (enPassant >= 0) {
+            // the pushed pawn stands in front of the square, and it came from behind it
+            int forward = turn == TeamColor.WHITE ? 8 : -8;
+            if (board.pieceAt(enPassant - forward) != Bitboards.piece(waiting, PAWN)
+                    || board.pieceAt(enPassant) != Bitboards.EMPTY
+                    || board.pieceAt(enPassant + forward) != Bitboards.EMPTY) {
+                throw malformedFen(fen, "no pawn has just passed the en passant square");
+            }
+        }
+    }
+
+    /**
+     * Reads the piece placement field starting at an index, adding the pieces to the
+     * board
+     *
+     * @return the index just past the field
+     */
+    private static int parsePlacement(CharSequence fen, int start, ChessBoard board) {
+        int rank = 7;
+        int file = 0;
+        int i = start;
+        for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (file != 8 || rank == 0) {
+                    throw malformedFen(fen, "rank " + (rank + 1) + " does not have 8 squares");
+                }
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+                if (file > 8) {
+                    throw malformedFen(fen, "rank " + (rank + 1) + " has more than 8 squares");
+                }
+            } else {
+                int piece = c < FEN_PIECE_CODES.length ? FEN_PIECE_CODES[c] : -1;
+                if (piece < 0) {
+                    throw malformedFen(fen, "unknown piece '" + c + "'");
+                }
+                if (file > 7) {
+                    throw malformedFen(fen, "rank " + (rank + 1) + " has more than 8 squares");
+                }
+                board.addPiece(rank * 8 + file, piece);
+                file++;
+            }
+        }
+        if (rank != 0 || file != 8) {
+            throw malformedFen(fen, "the placement does not have 8 full ranks");
+        }
+        return i;
+    }
+
+    private static int skipSpaces(CharSequence fen, int i) {
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    // checks that the field just read ends at i
+    private static int endOfField(CharSequence fen, int i, String field) {
+        if (i < fen.length() && fen.charAt(i) != ' ') {
+            throw malformedFen(fen, "bad " + field);
+        }
+        return i;
+    }
+
+    // skips to the start of a required field
+    private static int nextField(CharSequence fen, int i, String field) {
+        i = skipSpaces(fen, i);
+        if (i == fen.length()) {
+            throw malformedFen(fen, "missing " + field);
+        }
+        return i;
+    }
+
+    private static int endOfNumber(CharSequence fen, int i, String field) {
+        int end = i;
+        while (end < fen.length() && fen.charAt(end) >= '0' && fen.charAt(end) <= '9') {
+            end++;
+        }
+        if (end == i || (end < fen.length() && fen.charAt(end) != ' ')) {
+            throw malformedFen(fen, "bad " + field);
+        }
+        return end;
+    }
+
+    // reads the digits in [start, end), saturating at max
+    private static int parseCount(CharSequence fen, int start, int end, int max) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = Math.min(max, value * 10 + (fen.charAt(i) - '0'));
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException malformedFen(CharSequence fen, String problem) {
+        return new IllegalArgumentException("Invalid FEN '" + fen + "': " + problem);
+    }
+
+    /**
+     * Appends the FEN record of the current position
+     *
+     * @param out the builder to append to
+     * @return the same builder
+     */
+    public StringBuilder toFen(StringBuilder out) {
+        long occupied = board.occupied();
+        for (int rank = 7; rank >= 0; rank--) {
+            int pieces = (int) (occupied >>> (rank * 8)) & 0xFF;
+            int file = 0;
+            while (pieces != 0) {
+                int next = Integer.numberOfTrailingZeros(pieces);
+                if (next > file) {
+                    out.append((char) ('0' + next - file));
+                }
+                out.append(FEN_PIECES.charAt(board.pieceAt(rank * 8 + next)));
+                file = next + 1;
+                pieces &= pieces - 1;
+            }
+            if (file < 8) {
+                out.append((char) ('0' + 8 - file));
+            }
+            if (rank > 0) {
+                out.append('/');
+            }
+        }
+        out.append(teamTurn == TeamColor.BLACK ? " b " : " w ");
+        int castling = castlingRights();
+        if (castling == 0) {
+            out.append('-');
+        }
+        for (int right = 0; right < 4; right++) {
+            if ((castling & (1 << right)) != 0) {
+                out.append(FEN_CASTLING.charAt(right));
+            }
+        }
+        out.append(' ');
+        int enPassant = enPassantSquare();
+        if (enPassant < 0) {
+            out.append('-');
+        } else {
+            out.append((char) ('a' + (enPassant & 7))).append((char) ('1' + (enPassant >>> 3)));
+        }
+        return out.append(' ').append(halfmoveClock()).append(' ').append(fullmoveNumber());
+    }
+
+    /**
+     * @return the FEN record of the current position
+     */
+    public String toFen() {
+        return toFen(new StringBuilder(90)).toString();
+    }
+
+    /**
+     * @return the packed castling rights, en passant square and move counters
+     */
+    int packedState() {
+        return state;
+    }
+
+    /**
+     * @return how many of the earlier position keys can still repeat the current
+     * position, at most {@link #MAX_HALFMOVES}
+     */
+    int repetitionWindow() {
+        return Math.min(historySize, halfmoveClock());
+    }
+
+    /**
+     * @return the key of an earlier position in the repetition window, oldest first
+     */
+    long repetitionKey(int index) {
+        return history[historySize - repetitionWindow() + index];
+    }
+
+    /**
+     * Sets everything but the board, which the caller has already filled in. The moves
+     * played so far are forgotten apart from the given position keys.
+     *
+     * @param keys  the repetition window, oldest first
+     * @param count how many keys to take
+     */
+    void restore(TeamColor turn, int packedState, long[] keys, int count) {
+        if (history.length < count) {
+            history = new long[Math.max(count, HISTORY_INITIAL_CAPACITY)];
+        }
+        System.arraycopy(keys, 0, history, 0, count);
+        historySize = count;
+        teamTurn = turn;
+        state = packedState;
+        ply = 0;
+        status = null;
+    }
+
+    /**
+     * Counts how many times the current position has occurred, including now. Only
+     * positions since the last capture or pawn move are compared, by their keys.
+     *
+     * @return 1 if the position is new
+     */
+    public int repetitionCount() {
+        long key = positionKey();
+        int count = 1;
+        int oldest = Math.max(0, historySize - halfmoveClock());
+        for (int i = historySize - 2; i >= oldest; i -= 2) {
+            if (history[i] == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return True if the current position has occurred three times
+     */
+    public boolean isThreefoldRepetition() {
+        return repetitionCount() >= 3;
+    }
+
+    /**
+     * @return True if fifty moves by each team have passed without a capture or pawn move
+     */
+    public boolean isFiftyMoveDraw() {
+        return halfmoveClock() >= FIFTY_MOVE_HALFMOVES;
+    }
+
+    /**
+     * Determines if the game is drawn by threefold repetition or the fifty-move rule.
+     * Stalemate is reported separately by {@link #isInStalemate(TeamColor)}.
+     *
+     * @return True if the game is drawn
+     */
+    public boolean isDraw() {
+        return isThreefoldRepetition() || isFiftyMoveDraw();
+    }
+
+    /**
+     * @return the en passant square if a pawn of the team to move attacks it, else -1.
+     * Only then does it make the position differ from the same placement without it.
+     */
+    private int capturableEnPassant() {
+        int square = enPassantSquare();
+        if (square < 0 || teamTurn == null) {
+            return -1;
+        }
+        int color = teamTurn.ordinal();
+        long pawns = board.pieces(Bitboards.piece(color, PAWN));
+        return (Attacks.pawn(color ^ 1, square) & pawns) != 0 ? square : -1;
+    }
+
+    /**
+     * Gets a 64-bit Zobrist key for the position: the pieces, the team to move, the
+     * castling rights and any en passant capture that is available. Equal positions
+     * always have equal keys, and the piece part is maintained incrementally so
+     * reading it is constant time.
+     *
+     * @return the position key
+     */
+    public long positionKey() {
+        long key = board.key() ^ Zobrist.castling(castlingRights());
+        if (teamTurn == TeamColor.BLACK) {
+            key ^= Zobrist.blackToMove();
+        }
+        int enPassant = capturableEnPassant();
+        if (enPassant >= 0) {
+            key ^= Zobrist.enPassant(enPassant & 7);
+        }
+        return key;
     }
 
     @Override
@@ -241,7 +919,9 @@ public class ChessGame {
         if (board == null || that.board == null) {
             return false;
         }
-        return board.equals(that.board);
+        return board.equals(that.board)
+                && castlingRights() == that.castlingRights()
+                && capturableEnPassant() == that.capturableEnPassant();
     }
 
     @Override
@@ -251,9 +931,10 @@ public class ChessGame {
 
     @Override
     public int hashCode() {
-        int k = (board == null ? 0 : board.hashCode());
-        k = 31 * k + (teamTurn == null ? 0 : teamTurn.hashCode());
-        return k;
+        if (board == null || teamTurn == null) {
+            return 0;
+        }
+        return Long.hashCode(positionKey());
     }
 
     /**
@@ -263,4 +944,22 @@ public class ChessGame {
         WHITE, BLACK
     }
 
+    /**
+     * The state of a game from the point of view of the team to move
+     */
+    public enum GameStatus {
+        ONGOING,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        /**
+         * Drawn by threefold repetition or the fifty-move rule
+         */
+        DRAW;
+
+        public boolean isGameOver() {
+            return this == CHECKMATE || this == STALEMATE || this == DRAW;
+        }
+    }
+
 }
@@ -7,6 +7,11 @@ package chess;
  * signature of the existing methods.
  */
 public class ChessMove {
+    // indexed by the start, end and promotion bits of a Move; filled on first use.
+    // Racing threads may each create an instance, which is harmless since moves are
+    // immutable and compare by value
+    private static final ChessMove[] MOVES = new ChessMove[Move.BASE_MASK + 1];
+
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
@@ -17,6 +22,36 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Returns the shared instance of a move, or a new move if either position is off
+     * the board
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if (ChessPosition.invalidPosition(startPosition.getRow(), startPosition.getColumn())
+                || ChessPosition.invalidPosition(endPosition.getRow(), endPosition.getColumn())) {
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        int from = Bitboards.square(startPosition);
+        int to = Bitboards.square(endPosition);
+        return of(promotionPiece == null ? Move.encode(from, to) : Move.encode(from, to, promotionPiece.ordinal(), 0));
+    }
+
+    /**
+     * @return the shared instance for an encoded {@link Move}, ignoring its flags
+     */
+    static ChessMove of(int move) {
+        int index = move & Move.BASE_MASK;
+        ChessMove cached = MOVES[index];
+        if (cached == null) {
+            int promotion = Move.promotion(move);
+            cached = new ChessMove(ChessPosition.of(Move.from(move)), ChessPosition.of(Move.to(move)),
+                    promotion < 0 ? null : Bitboards.pieceType(promotion));
+            MOVES[index] = cached;
+        }
+        return cached;
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -2,7 +2,6 @@ package chess;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 
 /**
  * Represents a single chess piece
@@ -12,6 +11,16 @@ import java.util.HashSet;
  */
 public class ChessPiece {
 
+    private static final ChessPiece[] PIECES = new ChessPiece[Bitboards.PIECE_CODES];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[Bitboards.piece(color, type)] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     private final PieceType type;
     private final ChessGame.TeamColor pieceColor;
 
@@ -20,29 +29,33 @@ public class ChessPiece {
         this.pieceColor = pieceColor;
     }
 
-    public static ArrayList<ChessPosition> findTeamPositions(ChessBoard board, ChessGame.TeamColor color) {
-        ArrayList<ChessPosition> positions = new ArrayList<>();
+    /**
+     * @return the shared instance of a piece
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[Bitboards.piece(pieceColor, type)];
+    }
 
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece currPiece = board.getPiece(pos);
+    /**
+     * @return the shared instance for a piece code, as numbered by {@link Bitboards}
+     */
+    static ChessPiece of(int piece) {
+        return PIECES[piece];
+    }
 
-                if (currPiece != null && currPiece.getTeamColor() == color) {
-                    positions.add(pos);
-                }
-            }
-        }
-        return positions;
+    public static ArrayList<ChessPosition> findTeamPositions(ChessBoard board, ChessGame.TeamColor color) {
+        return toPositions(board.teamPieces(color));
     }
 
     public static ArrayList<ChessPosition> findPiecePositionsForTeam(ChessPiece.PieceType pieceType, ChessBoard board, ChessGame.TeamColor color) {
-        ArrayList<ChessPosition> positions = new ArrayList<>();
-        ArrayList<ChessPosition> allPositions = findTeamPositions(board, color);
-        for (ChessPosition pos : allPositions) {
-            if (board.getPiece(pos).getPieceType() == pieceType) {
-                positions.add(pos);
-            }
+        return toPositions(board.pieces(color, pieceType));
+    }
+
+    private static ArrayList<ChessPosition> toPositions(long squares) {
+        ArrayList<ChessPosition> positions = new ArrayList<>(Long.bitCount(squares));
+        while (squares != 0) {
+            positions.add(Bitboards.position(Long.numberOfTrailingZeros(squares)));
+            squares &= squares - 1;
         }
         return positions;
     }
@@ -69,22 +82,9 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-
-        Rule rule = switch (getPieceType()) {
-            case BISHOP -> new Rules(true, new int[][]{{1, 1}, {-1, 1}, {-1, -1}, {1, -1}});
-            case ROOK -> new Rules(true, new int[][]{{1, 0}, {0, -1}, {-1, 0}, {0, 1}});
-            case KNIGHT ->
-                    new Rules(false, new int[][]{{1, 2}, {-1, 2}, {1, -2}, {-1, -2}, {2, 1}, {-2, 1}, {2, -1}, {-2, -1}});
-            case QUEEN ->
-                    new Rules(true, new int[][]{{1, 1}, {-1, 1}, {-1, -1}, {1, -1}, {1, 0}, {0, -1}, {-1, 0}, {0, 1}});
-            case KING ->
-                    new Rules(false, new int[][]{{1, 1}, {-1, 1}, {-1, -1}, {1, -1}, {1, 0}, {0, -1}, {-1, 0}, {0, 1}});
-            case PAWN -> new PawnRule();
-            default -> null;
-        };
-
-        return rule != null ? rule.getMoves(board, myPosition) : new HashSet<>();
-
+        MoveList moves = new MoveList();
+        MoveGenerator.rule(type).generate(board, Bitboards.square(myPosition), pieceColor.ordinal(), moves);
+        return Move.toChessMoves(moves);
     }
 
     @Override
@@ -7,6 +7,14 @@ package chess;
  * signature of the existing methods.
  */
 public class ChessPosition {
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < SQUARES.length; square++) {
+            SQUARES[square] = new ChessPosition(square / 8 + 1, square % 8 + 1);
+        }
+    }
+
     private final int row;
     private final int column;
 
@@ -15,6 +23,24 @@ public class ChessPosition {
         this.column = col;
     }
 
+    /**
+     * Returns the shared instance for a square on the board, or a new position if the
+     * coordinates are off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (invalidPosition(row, col)) {
+            return new ChessPosition(row, col);
+        }
+        return SQUARES[(row - 1) * 8 + (col - 1)];
+    }
+
+    /**
+     * @return the shared instance for a square index, as numbered by {@link Bitboards}
+     */
+    static ChessPosition of(int square) {
+        return SQUARES[square];
+    }
+
     public static boolean invalidPosition(int row, int col) {
         return row < 1 || row > 8 || col < 1 || col > 8;
     }
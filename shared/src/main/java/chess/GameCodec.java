@@ -0,0 +1,255 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * A compact binary encoding of a {@link ChessGame}, for storing and sending games.
+ * <p>
+ * The position takes a fixed {@link #POSITION_BYTES} bytes:
+ * <ul>
+ *     <li>a header byte holding the format version in the high nibble and the side
+ *     to move in bit 0 (set for black)</li>
+ *     <li>32 bytes with one nibble per square from a1 to h8, low nibble first, holding
+ *     the piece code + 1 or 0 for an empty square</li>
+ *     <li>the castling rights, en passant square and move counters as a big-endian
+ *     int</li>
+ * </ul>
+ * It is followed by a count byte and that many big-endian position keys, the ones
+ * since the last capture or pawn move, so repetitions are still detected after a
+ * round trip. A decoded game is equal to the encoded one and has the same position
+ * key, but has no moves to take back.
+ */
+public final class GameCodec {
+
+    public static final int POSITION_BYTES = 37;
+
+    private static final int VERSION = 1;
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int SQUARES_OFFSET = 1;
+    private static final int STATE_OFFSET = 33;
+
+    private GameCodec() {
+    }
+
+    /**
+     * @return how many bytes {@link #encode(ChessGame, byte[], int)} writes for the game
+     */
+    public static int encodedSize(ChessGame game) {
+        return POSITION_BYTES + 1 + game.repetitionWindow() * Long.BYTES;
+    }
+
+    public static byte[] encode(ChessGame game) {
+        byte[] bytes = new byte[encodedSize(game)];
+        encode(game, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Writes the encoding of a game into an array
+     *
+     * @param out    the array, with at least {@link #encodedSize(ChessGame)} bytes free
+     *               from the offset
+     * @param offset where to start writing
+     * @return the offset just past the encoding
+     */
+    public static int encode(ChessGame game, byte[] out, int offset) {
+        ChessBoard board = game.getBoard();
+        out[offset] = (byte) ((VERSION << 4) | (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0));
+        for (int square = 0; square < 64; square += 2) {
+            int low = board.pieceAt(square) + 1;
+            int high = board.pieceAt(square + 1) + 1;
+            out[offset + SQUARES_OFFSET + (square >>> 1)] = (byte) (low | (high << 4));
+        }
+        writeInt(out, offset + STATE_OFFSET, game.packedState());
+
+        int i = offset + POSITION_BYTES;
+        int keys = game.repetitionWindow();
+        out[i++] = (byte) keys;
+        for (int k = 0; k < keys; k++) {
+            writeLong(out, i, game.repetitionKey(k));
+            i += Long.BYTES;
+        }
+        return i;
+    }
+
+    public static ChessGame decode(byte[] bytes) {
+        return decode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads a game written by {@link #encode(ChessGame, byte[], int)}
+     *
+     * @param offset where the encoding starts
+     * @param length how many bytes it takes
+     * @throws IllegalArgumentException if the bytes are not a valid encoding
+     */
+    public static ChessGame decode(byte[] bytes, int offset, int length) {
+        if (length < POSITION_BYTES + 1 || offset < 0 || offset + length > bytes.length) {
+            throw new IllegalArgumentException("Encoded game is too short: " + length + " bytes");
+        }
+        int header = bytes[offset] & 0xFF;
+        if (header >>> 4 != VERSION || (header & ~BLACK_TO_MOVE & 0xF) != 0) {
+            throw new IllegalArgumentException("Unknown encoded game header " + header);
+        }
+        int keys = bytes[offset + POSITION_BYTES] & 0xFF;
+        if (length != POSITION_BYTES + 1 + keys * Long.BYTES) {
+            throw new IllegalArgumentException("Encoded game with " + keys + " keys has " + length + " bytes");
+        }
+
+        ChessGame game = new ChessGame();
+        ChessBoard board = game.getBoard();
+        board.clear();
+        for (int square = 0; square < 64; square++) {
+            int nibble = (bytes[offset + SQUARES_OFFSET + (square >>> 1)] >>> ((square & 1) * 4)) & 0xF;
+            if (nibble > Bitboards.PIECE_CODES) {
+                throw new IllegalArgumentException("Unknown piece code " + (nibble - 1) + " on square " + square);
+            }
+            if (nibble != 0) {
+                board.addPiece(square, nibble - 1);
+            }
+        }
+
+        long[] history = new long[keys];
+        for (int k = 0; k < keys; k++) {
+            history[k] = readLong(bytes, offset + POSITION_BYTES + 1 + k * Long.BYTES);
+        }
+        ChessGame.TeamColor turn = (header & BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        game.restore(turn, readInt(bytes, offset + STATE_OFFSET), history, keys);
+        if (game.enPassantSquare() >= 64 || game.fullmoveNumber() < 1) {
+            throw new IllegalArgumentException("Encoded game has a bad state");
+        }
+        return game;
+    }
+
+    private static void writeInt(byte[] out, int i, int value) {
+        out[i] = (byte) (value >>> 24);
+        out[i + 1] = (byte) (value >>> 16);
+        out[i + 2] = (byte) (value >>> 8);
+        out[i + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] in, int i) {
+        return ((in[i] & 0xFF) << 24) | ((in[i + 1] & 0xFF) << 16) | ((in[i + 2] & 0xFF) << 8) | (in[i + 3] & 0xFF);
+    }
+
+    private static void writeLong(byte[] out, int i, long value) {
+        writeInt(out, i, (int) (value >>> 32));
+        writeInt(out, i + 4, (int) value);
+    }
+
+    private static long readLong(byte[] in, int i) {
+        return ((long) readInt(in, i) << 32) | (readInt(in, i + 4) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Rebuilds a game stored by the first version, whose board was a grid of pieces
+     * indexed by row then column, such as
+     * {@code {"board":{"board":[[{"type":"ROOK","pieceColor":"WHITE"},...],...]},"teamTurn":"WHITE"}}.
+     * Those games kept no castling rights or move counters, so the rights are
+     * inferred from where the kings and rooks stand, as {@link ChessGame#setBoard}
+     * does.
+     *
+     * @throws IllegalArgumentException if the grid is not 8 by 8 or holds an unknown
+     *                                  piece
+     */
+    static ChessGame decodeGrid(JsonArray grid, ChessGame.TeamColor turn) {
+        if (grid.size() != 8) {
+            throw new IllegalArgumentException("Stored board has " + grid.size() + " rows");
+        }
+        ChessBoard board = new ChessBoard();
+        for (int row = 0; row < 8; row++) {
+            JsonArray squares = grid.get(row).getAsJsonArray();
+            if (squares.size() != 8) {
+                throw new IllegalArgumentException("Stored board row " + (row + 1) + " has " + squares.size()
+                        + " squares");
+            }
+            for (int col = 0; col < 8; col++) {
+                JsonElement piece = squares.get(col);
+                if (piece.isJsonNull()) {
+                    continue;
+                }
+                JsonObject fields = piece.getAsJsonObject();
+                board.addPiece(row * 8 + col, Bitboards.piece(
+                        ChessGame.TeamColor.valueOf(fields.get("pieceColor").getAsString()),
+                        ChessPiece.PieceType.valueOf(fields.get("type").getAsString())));
+            }
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(turn);
+        return game;
+    }
+
+    /**
+     * Makes Gson write games as the Base64 of their encoding, which
+     * {@link ChessGame} picks up through its {@code @JsonAdapter} annotation. Games
+     * stored by the first version, as a JSON object with a piece grid, are still read
+     * through {@link #decodeGrid}; any other object is rejected, as its fields cannot
+     * be checked against each other.
+     */
+    public static final class GsonAdapterFactory implements TypeAdapterFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != ChessGame.class) {
+                return null;
+            }
+            return (TypeAdapter<T>) new TypeAdapter<ChessGame>() {
+                @Override
+                public void write(JsonWriter out, ChessGame game) throws IOException {
+                    if (game == null) {
+                        out.nullValue();
+                    } else {
+                        out.value(Base64.getEncoder().encodeToString(encode(game)));
+                    }
+                }
+
+                @Override
+                public ChessGame read(JsonReader in) throws IOException {
+                    JsonToken token = in.peek();
+                    if (token == JsonToken.NULL) {
+                        in.nextNull();
+                        return null;
+                    }
+                    if (token == JsonToken.BEGIN_OBJECT) {
+                        String path = in.getPath();
+                        JsonObject object = JsonParser.parseReader(in).getAsJsonObject();
+                        JsonElement board = object.get("board");
+                        if (board == null || !board.isJsonObject() || !board.getAsJsonObject().has("board")) {
+                            throw new JsonSyntaxException("Stored game at " + path + " is not a piece grid");
+                        }
+                        try {
+                            JsonElement turn = object.get("teamTurn");
+                            return decodeGrid(board.getAsJsonObject().getAsJsonArray("board"),
+                                    turn == null ? ChessGame.TeamColor.WHITE
+                                            : ChessGame.TeamColor.valueOf(turn.getAsString()));
+                        } catch (RuntimeException e) {
+                            // a grid of the wrong shape, or a piece with a missing or unknown field
+                            throw new JsonSyntaxException("Bad stored board at " + path, e);
+                        }
+                    }
+                    try {
+                        return decode(Base64.getDecoder().decode(in.nextString()));
+                    } catch (IllegalArgumentException e) {
+                        throw new JsonSyntaxException("Bad encoded game at " + in.getPath(), e);
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Encodes chess moves as primitive ints for the allocation-free move generator.
+ * <p>
+ * Layout: bits 0-5 start square, bits 6-11 end square, bits 12-14 promotion piece
+ * (piece type ordinal + 1, or 0 for none) and the flag bits above that. Two moves
+ * describe the same {@link ChessMove} when their {@link #BASE_MASK} bits match.
+ */
+public final class Move {
+
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int DOUBLE_PUSH = 1 << 16;
+    /**
+     * Set together with {@link #CAPTURE}; the captured pawn is beside the start square.
+     */
+    public static final int EN_PASSANT = 1 << 17;
+    /**
+     * A king moving two squares; the rook moves to the square the king passed over.
+     */
+    public static final int CASTLE = 1 << 18;
+
+    public static final int BASE_MASK = (1 << 15) - 1;
+
+    private Move() {
+    }
+
+    public static int encode(int from, int to) {
+        return from | (to << 6);
+    }
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | flags;
+    }
+
+    public static int encode(int from, int to, int promotionType, int flags) {
+        return from | (to << 6) | ((promotionType + 1) << 12) | flags;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return the promotion piece type ordinal, or -1 if the move is not a promotion
+     */
+    public static int promotion(int move) {
+        return ((move >>> 12) & 7) - 1;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & (7 << 12)) != 0;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        return (move & CASTLE) != 0;
+    }
+
+    public static int fromChessMove(ChessMove move) {
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        int from = Bitboards.square(move.getStartPosition());
+        int to = Bitboards.square(move.getEndPosition());
+        return promotion == null ? encode(from, to) : encode(from, to, promotion.ordinal(), 0);
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(move);
+    }
+
+    public static Collection<ChessMove> toChessMoves(MoveList moves) {
+        Collection<ChessMove> result = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            result.add(toChessMove(moves.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * @return the move in coordinate notation, e.g. e2e4 or e7e8q
+     */
+    public static String toString(int move) {
+        StringBuilder sb = new StringBuilder(5);
+        appendSquare(sb, from(move));
+        appendSquare(sb, to(move));
+        int promotion = promotion(move);
+        if (promotion >= 0) {
+            sb.append("kqbnrp".charAt(promotion));
+        }
+        return sb.toString();
+    }
+
+    static void appendSquare(StringBuilder sb, int square) {
+        sb.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+}
@@ -0,0 +1,264 @@
+package chess;
+
+/**
+ * Generates moves straight into a caller-supplied {@link MoveList}.
+ * <p>
+ * The pseudo-legal methods do not check whether a move leaves the mover's king in
+ * danger, and only produce the moves a piece can make from the board alone. The legal
+ * methods also take the game's castling rights and en passant square, work out the
+ * checking pieces and pinned pieces once per call and filter each piece's moves
+ * against them, so no move has to be played out to be validated.
+ */
+public final class MoveGenerator {
+
+    private static final int KING = ChessPiece.PieceType.KING.ordinal();
+    private static final int QUEEN = ChessPiece.PieceType.QUEEN.ordinal();
+    private static final int BISHOP = ChessPiece.PieceType.BISHOP.ordinal();
+    private static final int ROOK = ChessPiece.PieceType.ROOK.ordinal();
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+
+    private static final Rule[] RULES = {
+            Rules.KING, Rules.QUEEN, Rules.BISHOP, Rules.KNIGHT, Rules.ROOK, PawnRule.INSTANCE
+    };
+
+    private MoveGenerator() {
+    }
+
+    public static Rule rule(ChessPiece.PieceType type) {
+        return RULES[type.ordinal()];
+    }
+
+    /**
+     * Appends the pseudo-legal moves of the piece on a square
+     *
+     * @return false if the square is empty
+     */
+    public static boolean generate(ChessBoard board, int square, MoveList moves) {
+        int piece = board.pieceAt(square);
+        if (piece == Bitboards.EMPTY) {
+            return false;
+        }
+        RULES[Bitboards.typeOf(piece)].generate(board, square, Bitboards.colorOf(piece), moves);
+        return true;
+    }
+
+    /**
+     * Appends the pseudo-legal moves of every piece of one team
+     */
+    public static void generateAll(ChessBoard board, int color, MoveList moves) {
+        for (int type = 0; type < Bitboards.PIECE_TYPES; type++) {
+            long pieces = board.pieces(Bitboards.piece(color, type));
+            while (pieces != 0) {
+                RULES[type].generate(board, Long.numberOfTrailingZeros(pieces), color, moves);
+                pieces &= pieces - 1;
+            }
+        }
+    }
+
+    /**
+     * Appends the legal moves of every piece of one team
+     *
+     * @param castling  the castling rights, as in {@link ChessGame#castlingRights()}
+     * @param enPassant the square a pawn may capture en passant onto, or -1
+     */
+    public static void generateAllLegal(ChessBoard board, int color, int castling, int enPassant, MoveList moves) {
+        int king = board.kingSquare(color);
+        if (king < 0) {
+            generateAll(board, color, moves);
+            generateEnPassant(board, king, color, enPassant, moves);
+            return;
+        }
+        long checkers = checkers(board, king, color);
+        generateKingMoves(board, king, color, moves);
+        if ((checkers & (checkers - 1)) != 0) {
+            return;
+        }
+        if (checkers == 0) {
+            generateCastles(board, king, color, castling, moves);
+        }
+
+        long pinned = pinned(board, king, color);
+        long checkMask = checkMask(king, checkers);
+        for (int type = 0; type < Bitboards.PIECE_TYPES; type++) {
+            if (type == KING) {
+                continue;
+            }
+            long pieces = board.pieces(Bitboards.piece(color, type));
+            while (pieces != 0) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                int start = moves.size();
+                RULES[type].generate(board, square, color, moves);
+                retainLegal(moves, start, square, king, pinned, checkMask);
+                pieces &= pieces - 1;
+            }
+        }
+        generateEnPassant(board, king, color, enPassant, moves);
+    }
+
+    /**
+     * Appends the legal moves of the piece on a square
+     *
+     * @param castling  the castling rights, as in {@link ChessGame#castlingRights()}
+     * @param enPassant the square a pawn may capture en passant onto, or -1
+     * @return false if the square is empty
+     */
+    public static boolean generateLegal(ChessBoard board, int square, int castling, int enPassant, MoveList moves) {
+        int piece = board.pieceAt(square);
+        if (piece == Bitboards.EMPTY) {
+            return false;
+        }
+        int color = Bitboards.colorOf(piece);
+        int type = Bitboards.typeOf(piece);
+        int king = board.kingSquare(color);
+        long enPassantFrom = type == PAWN ? 1L << square : 0;
+        if (king < 0) {
+            RULES[type].generate(board, square, color, moves);
+            generateEnPassant(board, king, color, enPassant, enPassantFrom, moves);
+            return true;
+        }
+        long checkers = checkers(board, king, color);
+        if (type == KING) {
+            generateKingMoves(board, king, color, moves);
+            if (checkers == 0) {
+                generateCastles(board, king, color, castling, moves);
+            }
+            return true;
+        }
+        if ((checkers & (checkers - 1)) != 0) {
+            return true;
+        }
+        int start = moves.size();
+        RULES[type].generate(board, square, color, moves);
+        retainLegal(moves, start, square, king, pinned(board, king, color), checkMask(king, checkers));
+        generateEnPassant(board, king, color, enPassant, enPassantFrom, moves);
+        return true;
+    }
+
+    private static long checkers(ChessBoard board, int king, int color) {
+        return board.attackersTo(king, board.occupied()) & board.teamPieces(color ^ 1);
+    }
+
+    /**
+     * @return the squares a non-king move must land on: anywhere when not in check,
+     * otherwise the checking piece or a square blocking it
+     */
+    private static long checkMask(int king, long checkers) {
+        if (checkers == 0) {
+            return ~0L;
+        }
+        int checker = Long.numberOfTrailingZeros(checkers);
+        return Attacks.between(king, checker) | checkers;
+    }
+
+    /**
+     * @return the team's pieces that are the only blocker between their king and an
+     * enemy slider
+     */
+    private static long pinned(ChessBoard board, int king, int color) {
+        int enemy = (color ^ 1) * Bitboards.PIECE_TYPES;
+        long queens = board.pieces(enemy + QUEEN);
+        long snipers = (Attacks.rook(king, 0) & (board.pieces(enemy + ROOK) | queens))
+                | (Attacks.bishop(king, 0) & (board.pieces(enemy + BISHOP) | queens));
+        long occupied = board.occupied();
+        long own = board.teamPieces(color);
+        long pinned = 0;
+        while (snipers != 0) {
+            long blockers = Attacks.between(king, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & own;
+            }
+            snipers &= snipers - 1;
+        }
+        return pinned;
+    }
+
+    private static void generateKingMoves(ChessBoard board, int king, int color, MoveList moves) {
+        int start = moves.size();
+        RULES[KING].generate(board, king, color, moves);
+        long occupied = board.occupied() & ~(1L << king);
+        long enemies = board.teamPieces(color ^ 1);
+        int kept = start;
+        for (int i = start; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if ((board.attackersTo(Move.to(move), occupied) & enemies) == 0) {
+                moves.set(kept++, move);
+            }
+        }
+        moves.truncate(kept);
+    }
+
+    /**
+     * Appends the castles allowed by the rights whose king and rook are on their
+     * starting squares, with empty squares between them, when the king does not pass
+     * through or land on an attacked square. The caller checks the king is not in check.
+     */
+    private static void generateCastles(ChessBoard board, int king, int color, int castling, MoveList moves) {
+        int home = color == 0 ? 4 : 60;
+        int rights = (castling >>> (color * 2)) & 3;
+        if (king != home || rights == 0) {
+            return;
+        }
+        long rooks = board.pieces(Bitboards.piece(color, ROOK));
+        long occupied = board.occupied();
+        if ((rights & 1) != 0 && (rooks & (1L << (home + 3))) != 0
+                && (occupied & (3L << (home + 1))) == 0
+                && safeForKing(board, home + 1, color) && safeForKing(board, home + 2, color)) {
+            moves.add(Move.encode(home, home + 2, Move.CASTLE));
+        }
+        if ((rights & 2) != 0 && (rooks & (1L << (home - 4))) != 0
+                && (occupied & (7L << (home - 3))) == 0
+                && safeForKing(board, home - 1, color) && safeForKing(board, home - 2, color)) {
+            moves.add(Move.encode(home, home - 2, Move.CASTLE));
+        }
+    }
+
+    private static boolean safeForKing(ChessBoard board, int square, int color) {
+        long occupied = board.occupied() & ~board.pieces(Bitboards.piece(color, KING));
+        return (board.attackersTo(square, occupied) & board.teamPieces(color ^ 1)) == 0;
+    }
+
+    private static void generateEnPassant(ChessBoard board, int king, int color, int enPassant, MoveList moves) {
+        generateEnPassant(board, king, color, enPassant, ~0L, moves);
+    }
+
+    /**
+     * Appends the en passant captures of the team's pawns within {@code from}. Each is
+     * tested by removing both pawns from the occupancy and looking for attackers of the
+     * king, which also catches the captured pawn having shielded the king along a rank.
+     */
+    private static void generateEnPassant(ChessBoard board, int king, int color, int enPassant, long from,
+                                          MoveList moves) {
+        // the square must be on the rank this team's pawns capture en passant onto
+        if (enPassant < 0 || (enPassant >>> 3) != (color == 0 ? 5 : 2)) {
+            return;
+        }
+        int victim = enPassant + (color == 0 ? -8 : 8);
+        long pawns = Attacks.pawn(color ^ 1, enPassant) & board.pieces(Bitboards.piece(color, PAWN)) & from;
+        while (pawns != 0) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            long occupied = (board.occupied() & ~(1L << square) & ~(1L << victim)) | (1L << enPassant);
+            if (king < 0 || (board.attackersTo(king, occupied) & board.teamPieces(color ^ 1) & ~(1L << victim)) == 0) {
+                moves.add(Move.encode(square, enPassant, Move.CAPTURE | Move.EN_PASSANT));
+            }
+            pawns &= pawns - 1;
+        }
+    }
+
+    private static void retainLegal(MoveList moves, int start, int square, int king, long pinned, long checkMask) {
+        long allowed = checkMask;
+        if ((pinned & (1L << square)) != 0) {
+            allowed &= Attacks.line(king, square);
+        }
+        if (allowed == ~0L) {
+            return;
+        }
+        int kept = start;
+        for (int i = start; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if ((allowed & (1L << Move.to(move))) != 0) {
+                moves.set(kept++, move);
+            }
+        }
+        moves.truncate(kept);
+    }
+}
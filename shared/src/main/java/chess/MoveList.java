@@ -0,0 +1,83 @@
+package chess;
+
+/**
+ * A reusable buffer of moves encoded with {@link Move}.
+ * <p>
+ * Callers own the list and clear it between uses, so generating moves does not allocate.
+ */
+public final class MoveList {
+
+    /**
+     * No legal chess position has more than 218 moves.
+     */
+    public static final int MAX_MOVES = 256;
+
+    private final int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(MAX_MOVES);
+    }
+
+    public MoveList(int capacity) {
+        this.moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drops every move at or after the given index.
+     */
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+
+    /**
+     * Finds the generated move with the same start, end and promotion as the given move.
+     *
+     * @return the matching move including its flags, or {@link Move#NONE}
+     */
+    public int find(int move) {
+        int base = move & Move.BASE_MASK;
+        for (int i = 0; i < size; i++) {
+            if ((moves[i] & Move.BASE_MASK) == base) {
+                return moves[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(Move.toString(moves[i]));
+        }
+        return sb.append("]").toString();
+    }
+}
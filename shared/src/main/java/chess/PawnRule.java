@@ -1,60 +1,64 @@
 package chess;
 
 import java.util.Collection;
-import java.util.HashSet;
 
-public class PawnRule implements Rule {
-    public Collection<ChessMove> getMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new HashSet<>();
-        ChessPiece piece = board.getPiece(myPosition);
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-        int dir = (piece.getTeamColor() == ChessGame.TeamColor.WHITE) ? 1 : -1;
+/**
+ * Pawn pushes, captures and promotions. There is one shared instance.
+ */
+public final class PawnRule implements Rule {
+
+    public static final PawnRule INSTANCE = new PawnRule();
 
-        ChessPosition forward1 = new ChessPosition(row + dir, col);
-        ChessPosition forward2 = new ChessPosition(row + dir * 2, col);
-        ChessPosition diag1 = new ChessPosition(row + dir, col + 1);
-        ChessPosition diag2 = new ChessPosition(row + dir, col - 1);
+    private PawnRule() {
+    }
+
+    public Collection<ChessMove> getMoves(ChessBoard board, ChessPosition myPosition) {
+        MoveList moves = new MoveList();
+        int square = Bitboards.square(myPosition);
+        generate(board, square, Bitboards.colorOf(board.pieceAt(square)), moves);
+        return Move.toChessMoves(moves);
+    }
 
-        int startRow = (piece.getTeamColor() == ChessGame.TeamColor.WHITE) ? 2 : 7;
+    public void generate(ChessBoard board, int square, int color, MoveList moves) {
+        long occupied = board.occupied();
+        int row = square >>> 3;
+        int dir = (color == 0) ? 1 : -1;
+        int startRow = (color == 0) ? 1 : 6;
+        int forwardRow = row + dir;
 
+        if (forwardRow < 0 || forwardRow > 7) {
+            return;
+        }
 
         //one move forward
-        if (!ChessPosition.invalidPosition(row + dir, col) &&
-                board.getPiece(forward1) == null) {
-            getPawnMoves(moves, myPosition, forward1);
+        int forward1 = square + dir * 8;
+        if ((occupied & (1L << forward1)) == 0) {
+            addPawnMoves(moves, square, forward1, 0);
 
             //two moves forward
-            if (!ChessPosition.invalidPosition(row + dir * 2, col) &&
-                    board.getPiece(forward2) == null && row == startRow) {
-                getPawnMoves(moves, myPosition, forward2);
+            int forward2 = forward1 + dir * 8;
+            if (row == startRow && (occupied & (1L << forward2)) == 0) {
+                moves.add(Move.encode(square, forward2, Move.DOUBLE_PUSH));
             }
         }
 
         //capture enemy
-        if (!ChessPosition.invalidPosition(row + dir, col + 1) &&
-                board.getPiece(diag1) != null &&
-                (board.getPiece(diag1)).getTeamColor() != piece.getTeamColor()) {
-            getPawnMoves(moves, myPosition, diag1);
+        long captures = Attacks.pawn(color, square) & board.teamPieces(color ^ 1);
+        while (captures != 0) {
+            addPawnMoves(moves, square, Long.numberOfTrailingZeros(captures), Move.CAPTURE);
+            captures &= captures - 1;
         }
-
-        if (!ChessPosition.invalidPosition(row + dir, col - 1) &&
-                board.getPiece(diag2) != null &&
-                (board.getPiece(diag2)).getTeamColor() != piece.getTeamColor()) {
-            getPawnMoves(moves, myPosition, diag2);
-        }
-
-        return moves;
     }
 
-    private void getPawnMoves(Collection<ChessMove> moves, ChessPosition myPosition, ChessPosition newPosition) {
-        if (newPosition.getRow() == 8 || newPosition.getRow() == 1) {
-            moves.add(new ChessMove(myPosition, newPosition, ChessPiece.PieceType.QUEEN));
-            moves.add(new ChessMove(myPosition, newPosition, ChessPiece.PieceType.ROOK));
-            moves.add(new ChessMove(myPosition, newPosition, ChessPiece.PieceType.KNIGHT));
-            moves.add(new ChessMove(myPosition, newPosition, ChessPiece.PieceType.BISHOP));
+    private void addPawnMoves(MoveList moves, int from, int to, int flags) {
+        int toRow = to >>> 3;
+        if (toRow == 7 || toRow == 0) {
+            moves.add(Move.encode(from, to, ChessPiece.PieceType.QUEEN.ordinal(), flags));
+            moves.add(Move.encode(from, to, ChessPiece.PieceType.ROOK.ordinal(), flags));
+            moves.add(Move.encode(from, to, ChessPiece.PieceType.KNIGHT.ordinal(), flags));
+            moves.add(Move.encode(from, to, ChessPiece.PieceType.BISHOP.ordinal(), flags));
         } else {
-            moves.add(new ChessMove(myPosition, newPosition, null));
+            moves.add(Move.encode(from, to, flags));
         }
     }
 }
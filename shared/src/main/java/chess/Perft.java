@@ -0,0 +1,156 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Counts the leaf nodes of the legal move tree (perft) to check the move generator
+ * against known totals and to measure its throughput.
+ * <p>
+ * Run {@link #main(String[])} for a nodes-per-second benchmark over {@link #SUITE}.
+ */
+public final class Perft {
+
+    /**
+     * A standard test position and its known node counts, where {@code nodes[d - 1]}
+     * is the count at depth d.
+     */
+    public record Position(String name, String fen, long... nodes) {
+
+        public ChessGame game() {
+            return ChessGame.fromFen(fen);
+        }
+    }
+
+    /**
+     * Positions from the chessprogramming.org perft results
+     */
+    public static final List<Position> SUITE = List.of(
+            new Position("initial", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                    20, 400, 8902, 197281, 4865609),
+            new Position("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2039, 97862, 4085603),
+            new Position("position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191, 2812, 43238, 674624),
+            new Position("position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9467, 422333),
+            new Position("position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44, 1486, 62379, 2103487),
+            new Position("position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2079, 89890, 3894594)
+    );
+
+    private Perft() {
+    }
+
+    /**
+     * @return the number of leaf nodes of the legal move tree of the given depth
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        MoveList[] lists = new MoveList[depth + 1];
+        for (int i = 0; i <= depth; i++) {
+            lists[i] = new MoveList();
+        }
+        return perft(game, depth, lists);
+    }
+
+    private static long perft(ChessGame game, int depth, MoveList[] lists) {
+        MoveList moves = lists[depth];
+        game.legalMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            nodes += perft(game, depth - 1, lists);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the perft count below each legal root move, keyed by the move in
+     * coordinate notation
+     */
+    public static Map<String, Long> divide(ChessGame game, int depth) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            counts.put(Move.toString(moves.get(i)), perft(game, depth - 1));
+            game.unmakeMove();
+        }
+        return counts;
+    }
+
+    /**
+     * Counts perft nodes by splitting the root moves across a pool of threads, each
+     * working on its own copy of the game
+     *
+     * @param threads how many worker threads to use
+     */
+    public static long perft(ChessGame game, int depth, int threads) {
+        if (depth <= 1 || threads <= 1) {
+            return perft(game, depth);
+        }
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> results = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                results.add(pool.submit(() -> {
+                    ChessGame copy = new ChessGame(game);
+                    copy.makeMove(move);
+                    return perft(copy, depth - 1);
+                }));
+            }
+            long nodes = 0;
+            for (Future<Long> result : results) {
+                nodes += result.get();
+            }
+            return nodes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Perft interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Perft worker failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the suite at its deepest known depth on one thread and on every core.
+     * Optional arguments: the thread count for the parallel run.
+     */
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        for (Position position : SUITE) {
+            int depth = position.nodes().length;
+            for (int t : threads > 1 ? new int[]{1, threads} : new int[]{1}) {
+                ChessGame game = position.game();
+                long start = System.nanoTime();
+                long nodes = perft(game, depth, t);
+                long elapsed = Math.max(1, System.nanoTime() - start);
+                System.out.printf("%-12s depth %d threads %2d: %,d nodes in %,d ms (%,d nps)%s%n",
+                        position.name(), depth, t, nodes, elapsed / 1_000_000,
+                        nodes * 1_000_000_000L / elapsed,
+                        nodes == position.nodes()[depth - 1] ? "" : " MISMATCH");
+            }
+        }
+    }
+}
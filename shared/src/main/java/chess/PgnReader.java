@@ -0,0 +1,174 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the games of a PGN file one at a time, as their tag pairs, the SAN moves of the
+ * main line and the result. Comments, variations, numeric annotation glyphs and move
+ * numbers are skipped. The moves are not checked here; play them with
+ * {@link San#parse(ChessGame, CharSequence)}.
+ */
+public final class PgnReader implements Closeable {
+
+    /**
+     * One game of a PGN file
+     *
+     * @param tags   the tag pairs, such as {@code Event} and {@code White}, in file order
+     * @param moves  the SAN moves of the main line
+     * @param result {@code 1-0}, {@code 0-1}, {@code 1/2-1/2}, or {@code *} if unknown
+     */
+    public record Game(Map<String, String> tags, List<String> moves, String result) {
+
+        /**
+         * @return the position the moves start from: the {@code FEN} tag if there is
+         * one, or else the standard starting position
+         */
+        public ChessGame startingPosition() {
+            String fen = tags.get("FEN");
+            return fen == null ? new ChessGame() : ChessGame.fromFen(fen);
+        }
+    }
+
+    private final Reader in;
+    private int peeked = -2;
+
+    public PgnReader(Reader in) {
+        this.in = in instanceof BufferedReader ? in : new BufferedReader(in);
+    }
+
+    /**
+     * @return the next game, or null at the end of the input
+     * @throws IOException if reading fails
+     */
+    public Game next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<String> moves = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean started = false;
+        int c;
+        while ((c = read()) != -1) {
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (c == '[') {
+                if (!moves.isEmpty()) {
+                    // a game without a result ends where the next one's tags start
+                    unread(c);
+                    return new Game(tags, moves, "*");
+                }
+                readTag(tags);
+                started = true;
+            } else if (c == '{') {
+                skipPast('}');
+            } else if (c == ';' || c == '%') {
+                skipPast('\n');
+            } else if (c == '(') {
+                skipVariation();
+            } else {
+                started = true;
+                token.setLength(0);
+                token.append((char) c);
+                while ((c = read()) != -1 && !Character.isWhitespace(c) && "{}();[".indexOf(c) < 0) {
+                    token.append((char) c);
+                }
+                unread(c);
+                String word = token.toString();
+                if (word.equals("1-0") || word.equals("0-1") || word.equals("1/2-1/2") || word.equals("*")) {
+                    return new Game(tags, moves, word);
+                }
+                String move = stripMoveNumber(word);
+                if (!move.isEmpty() && move.charAt(0) != '$') {
+                    moves.add(move);
+                }
+            }
+        }
+        return started ? new Game(tags, moves, "*") : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void readTag(Map<String, String> tags) throws IOException {
+        StringBuilder name = new StringBuilder();
+        StringBuilder value = new StringBuilder();
+        int c;
+        while ((c = read()) != -1 && Character.isWhitespace(c)) {
+            // skip to the name
+        }
+        while (c != -1 && !Character.isWhitespace(c) && c != '"' && c != ']') {
+            name.append((char) c);
+            c = read();
+        }
+        while (c != -1 && c != '"' && c != ']') {
+            c = read();
+        }
+        if (c == '"') {
+            while ((c = read()) != -1 && c != '"') {
+                if (c == '\\') {
+                    c = read();
+                }
+                value.append((char) c);
+            }
+            skipPast(']');
+        }
+        tags.put(name.toString(), value.toString());
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) != -1) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                skipPast('}');
+            }
+        }
+    }
+
+    private void skipPast(int end) throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != end) {
+            // skip
+        }
+    }
+
+    // move numbers are written "12." or "12..." and may run into the move, as in "12.e4"
+    private static String stripMoveNumber(String word) {
+        int i = 0;
+        while (i < word.length() && Character.isDigit(word.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i == word.length() || word.charAt(i) != '.') {
+            return i == word.length() ? "" : word;
+        }
+        while (i < word.length() && word.charAt(i) == '.') {
+            i++;
+        }
+        return word.substring(i);
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        return in.read();
+    }
+
+    private void unread(int c) {
+        peeked = c;
+    }
+}
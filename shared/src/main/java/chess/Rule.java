@@ -4,6 +4,17 @@ import java.util.Collection;
 
 public interface Rule {
     Collection<ChessMove> getMoves(ChessBoard board, ChessPosition myPosition);
+
+    /**
+     * Appends the moves of the piece on the given square to a move list
+     * without allocating
+     *
+     * @param board  the board the piece is on
+     * @param square the square index of the piece
+     * @param color  the color index of the piece
+     * @param moves  the list to append encoded moves to
+     */
+    void generate(ChessBoard board, int square, int color, MoveList moves);
 }
 
 
@@ -1,49 +1,53 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Collection;
 
+/**
+ * Moves of the non-pawn pieces, read from the attack tables in {@link Attacks}.
+ * There is one shared instance per piece type.
+ */
+public final class Rules implements Rule {
 
-public class Rules implements Rule {
-    private final boolean toEdge;
-    private final int[][] directions;
+    public static final Rules KING = new Rules(ChessPiece.PieceType.KING);
+    public static final Rules QUEEN = new Rules(ChessPiece.PieceType.QUEEN);
+    public static final Rules BISHOP = new Rules(ChessPiece.PieceType.BISHOP);
+    public static final Rules KNIGHT = new Rules(ChessPiece.PieceType.KNIGHT);
+    public static final Rules ROOK = new Rules(ChessPiece.PieceType.ROOK);
 
-    public Rules(boolean toEdge, int[][] directions) {
-        this.toEdge = toEdge;
-        this.directions = directions;
+    private final ChessPiece.PieceType type;
+
+    private Rules(ChessPiece.PieceType type) {
+        this.type = type;
     }
 
     public Collection<ChessMove> getMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new HashSet<>();
-        ChessPiece piece = board.getPiece(myPosition);
-
-        for (int[] move : directions) {
-            int row = myPosition.getRow();
-            int col = myPosition.getColumn();
-
-            do {
-                row += move[0];
-                col += move[1];
-
-                if (ChessPosition.invalidPosition(row, col)) {
-                    break;
-                }
-                ChessPosition newPosition = new ChessPosition(row, col);
-                ChessPiece otherPiece = board.getPiece(newPosition);
-
-                if (otherPiece != null) {
-                    if (otherPiece.getTeamColor() != piece.getTeamColor()) {
-                        moves.add(new ChessMove(myPosition, newPosition, null));
-                    }
-                    break;
-                }
-                moves.add(new ChessMove(myPosition, newPosition, null));
-            } while (toEdge);
-        }
-
+        MoveList moves = new MoveList();
+        int square = Bitboards.square(myPosition);
+        generate(board, square, Bitboards.colorOf(board.pieceAt(square)), moves);
+        return Move.toChessMoves(moves);
+    }
 
-        return moves;
+    public void generate(ChessBoard board, int square, int color, MoveList moves) {
+        long enemy = board.teamPieces(color ^ 1);
+        long targets = attacks(square, board.occupied()) & ~board.teamPieces(color);
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            moves.add(Move.encode(square, target, (enemy & (1L << target)) != 0 ? Move.CAPTURE : 0));
+            targets &= targets - 1;
+        }
     }
 
+    /**
+     * @return the squares this piece type attacks from the square, given an occupancy
+     */
+    public long attacks(int square, long occupied) {
+        return switch (type) {
+            case KING -> Attacks.king(square);
+            case QUEEN -> Attacks.queen(square, occupied);
+            case BISHOP -> Attacks.bishop(square, occupied);
+            case KNIGHT -> Attacks.knight(square);
+            case ROOK -> Attacks.rook(square, occupied);
+            case PAWN -> throw new IllegalStateException("Pawns are handled by PawnRule");
+        };
+    }
 }
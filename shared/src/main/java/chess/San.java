@@ -0,0 +1,162 @@
+package chess;
+
+/**
+ * Reads and writes moves in standard algebraic notation, such as {@code Nf3},
+ * {@code exd5}, {@code O-O} or {@code e8=Q+}, as used by PGN.
+ * <p>
+ * A SAN move only makes sense in its position, so both directions take the game the
+ * move is played in.
+ */
+public final class San {
+
+    private static final String PIECE_LETTERS = "KQBNR";
+
+    private San() {
+    }
+
+    /**
+     * Finds the legal move a SAN string names. Check and annotation suffixes are
+     * ignored, castling may be written with zeros, and the {@code =} before a
+     * promotion piece may be left out.
+     *
+     * @return the move, in the encoding of {@link Move}
+     * @throws IllegalArgumentException if the string is malformed, or names no legal
+     *                                  move or more than one
+     */
+    public static int parse(ChessGame game, CharSequence san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+
+        String text = san.subSequence(0, end).toString();
+        if (text.equals("O-O") || text.equals("0-0") || text.equals("O-O-O") || text.equals("0-0-0")) {
+            int file = text.length() == 3 ? 6 : 2;
+            for (int i = 0; i < moves.size(); i++) {
+                if (Move.isCastle(moves.get(i)) && (Move.to(moves.get(i)) & 7) == file) {
+                    return moves.get(i);
+                }
+            }
+            throw new IllegalArgumentException("Castling is not legal here: " + san);
+        }
+
+        int i = 0;
+        int type = ChessPiece.PieceType.PAWN.ordinal();
+        if (i < end && PIECE_LETTERS.indexOf(text.charAt(i)) >= 0) {
+            type = PIECE_LETTERS.indexOf(text.charAt(i++));
+        }
+        int promotion = -1;
+        if (end - i >= 3 && PIECE_LETTERS.indexOf(text.charAt(end - 1)) > 0) {
+            promotion = PIECE_LETTERS.indexOf(text.charAt(--end));
+            if (text.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+        if (end - i < 2 || !isFile(text.charAt(end - 2)) || !isRank(text.charAt(end - 1))) {
+            throw new IllegalArgumentException("Malformed SAN move: " + san);
+        }
+        int to = Bitboards.square(text.charAt(end - 1) - '0', text.charAt(end - 2) - 'a' + 1);
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int j = i; j < end - 2; j++) {
+            char c = text.charAt(j);
+            if (isFile(c) && fromFile < 0 && fromRank < 0) {
+                fromFile = c - 'a';
+            } else if (isRank(c) && fromRank < 0) {
+                fromRank = c - '1';
+            } else if (c != 'x' || j != end - 3) {
+                throw new IllegalArgumentException("Malformed SAN move: " + san);
+            }
+        }
+
+        ChessBoard board = game.getBoard();
+        int found = Move.NONE;
+        for (int j = 0; j < moves.size(); j++) {
+            int move = moves.get(j);
+            int from = Move.from(move);
+            if (Move.to(move) == to && !Move.isCastle(move)
+                    && Bitboards.typeOf(board.pieceAt(from)) == type
+                    && Move.promotion(move) == promotion
+                    && (fromFile < 0 || (from & 7) == fromFile)
+                    && (fromRank < 0 || (from >>> 3) == fromRank)) {
+                if (found != Move.NONE) {
+                    throw new IllegalArgumentException("Ambiguous SAN move: " + san);
+                }
+                found = move;
+            }
+        }
+        if (found == Move.NONE) {
+            throw new IllegalArgumentException("No legal move " + san + " in " + game.toFen());
+        }
+        return found;
+    }
+
+    /**
+     * Writes a legal move in SAN, with the shortest disambiguation and a check or
+     * mate suffix
+     */
+    public static String toString(ChessGame game, int move) {
+        ChessBoard board = game.getBoard();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        StringBuilder out = new StringBuilder(8);
+        if (Move.isCastle(move)) {
+            out.append((to & 7) == 6 ? "O-O" : "O-O-O");
+        } else {
+            int type = Bitboards.typeOf(board.pieceAt(from));
+            if (type == ChessPiece.PieceType.PAWN.ordinal()) {
+                if (Move.isCapture(move)) {
+                    out.append((char) ('a' + (from & 7)));
+                }
+            } else {
+                out.append(PIECE_LETTERS.charAt(type));
+                MoveList moves = new MoveList();
+                game.legalMoves(moves);
+                boolean ambiguous = false;
+                boolean sameFile = false;
+                boolean sameRank = false;
+                for (int i = 0; i < moves.size(); i++) {
+                    int other = Move.from(moves.get(i));
+                    if (other != from && Move.to(moves.get(i)) == to
+                            && Bitboards.typeOf(board.pieceAt(other)) == type) {
+                        ambiguous = true;
+                        sameFile |= (other & 7) == (from & 7);
+                        sameRank |= (other >>> 3) == (from >>> 3);
+                    }
+                }
+                if (ambiguous && (!sameFile || sameRank)) {
+                    out.append((char) ('a' + (from & 7)));
+                }
+                if (sameFile) {
+                    out.append((char) ('1' + (from >>> 3)));
+                }
+            }
+            if (Move.isCapture(move)) {
+                out.append('x');
+            }
+            Move.appendSquare(out, to);
+            if (Move.isPromotion(move)) {
+                out.append('=').append(PIECE_LETTERS.charAt(Move.promotion(move)));
+            }
+        }
+
+        game.makeMove(move);
+        if (game.isInCheck(game.getTeamTurn())) {
+            MoveList replies = new MoveList();
+            game.legalMoves(replies);
+            out.append(replies.isEmpty() ? '#' : '+');
+        }
+        game.unmakeMove();
+        return out.toString();
+    }
+
+    private static boolean isFile(char c) {
+        return c >= 'a' && c <= 'h';
+    }
+
+    private static boolean isRank(char c) {
+        return c >= '1' && c <= '8';
+    }
+}
@@ -0,0 +1,70 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing of positions.
+ * <p>
+ * The keys come from a fixed-seed generator so every client, server and stored game
+ * agrees on the key of a position.
+ */
+public final class Zobrist {
+
+    private static final long[][] PIECE_SQUARE = new long[Bitboards.PIECE_CODES][64];
+    private static final long BLACK_TO_MOVE;
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        long seed = 0x2F6B3D1C9A4E8705L;
+        for (int piece = 0; piece < Bitboards.PIECE_CODES; piece++) {
+            for (int square = 0; square < 64; square++) {
+                seed += 0x9E3779B97F4A7C15L;
+                PIECE_SQUARE[piece][square] = mix(seed);
+            }
+        }
+        seed += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(seed);
+        // one key per right; a set of rights hashes to the XOR of its members
+        for (int right = 1; right < CASTLING.length; right <<= 1) {
+            seed += 0x9E3779B97F4A7C15L;
+            CASTLING[right] = mix(seed);
+        }
+        for (int rights = 1; rights < CASTLING.length; rights++) {
+            CASTLING[rights] = CASTLING[rights & -rights] ^ CASTLING[rights & (rights - 1)];
+        }
+        for (int file = 0; file < EN_PASSANT_FILE.length; file++) {
+            seed += 0x9E3779B97F4A7C15L;
+            EN_PASSANT_FILE[file] = mix(seed);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * SplitMix64 finalizer
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static long piece(int piece, int square) {
+        return PIECE_SQUARE[piece][square];
+    }
+
+    public static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+
+    /**
+     * @param rights castling rights as the bit set used by {@link ChessGame#castlingRights()}
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    public static long enPassant(int file) {
+        return EN_PASSANT_FILE[file];
+    }
+}
@@ -0,0 +1,35 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.PieceSquareTables;
+
+/**
+ * Static evaluation of a position, in centipawns for the team to move.
+ * <p>
+ * The score is material and piece placement from {@link PieceSquareTables}, blended
+ * from middlegame to endgame values as pieces come off. The board keeps both sums up
+ * to date as pieces move, so evaluating a position takes constant time.
+ */
+public final class Evaluation {
+
+    // rough values for ordering moves, indexed by piece type ordinal: king, queen,
+    // bishop, knight, rook, pawn
+    private static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private Evaluation() {
+    }
+
+    /**
+     * @return the value of a piece type, by ordinal; the king counts as 0
+     */
+    public static int pieceValue(int type) {
+        return PIECE_VALUES[type];
+    }
+
+    public static int evaluate(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        int score = PieceSquareTables.taper(board.psqtScore(), board.phase());
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,212 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+import java.util.Arrays;
+
+/**
+ * Sorts the moves of a search node so the best ones are likely searched first, which is
+ * what lets alpha-beta cut off the rest.
+ * <p>
+ * The order is the move from the transposition table, then captures that do not lose
+ * material by static exchange evaluation (most valuable victim, least valuable
+ * attacker) and queen promotions, then the two killer moves of the ply, then quiet moves
+ * by their history score, and last the captures that lose material. Killers are quiet
+ * moves that caused a cutoff at the same ply; the history is a butterfly table, by
+ * color, from and to square, of how deep the cutoffs each quiet move caused were.
+ * <p>
+ * All state is in primitive arrays allocated once. Like the {@link Searcher} that owns
+ * it, an instance is used by one thread.
+ */
+final class MoveOrdering {
+
+    private static final int KING = ChessPiece.PieceType.KING.ordinal();
+    private static final int QUEEN = ChessPiece.PieceType.QUEEN.ordinal();
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+
+    private static final int HASH_MOVE = 1 << 30;
+    private static final int GOOD_CAPTURE = 1 << 28;
+    private static final int FIRST_KILLER = 1 << 27;
+    private static final int SECOND_KILLER = FIRST_KILLER - 1;
+    private static final int BAD_CAPTURE = -(1 << 28);
+    // history scores are halved when one passes this, so they stay below the killers
+    // and recent cutoffs count more than old ones
+    private static final int HISTORY_LIMIT = 1 << 24;
+
+    // tie-break between captures of the same victim, by attacker type ordinal; higher
+    // goes first, so pawns capture before minor pieces, rooks, the queen and the king
+    private static final int[] ATTACKER_ORDER = {0, 1, 3, 4, 2, 5};
+    // piece type ordinals from the least to the most valuable, for exchanges
+    private static final int[] EXCHANGE_ORDER = {5, 3, 2, 4, 1, 0};
+    private static final int KING_VALUE = 20_000;
+
+    private final int[][] scores = new int[Searcher.MAX_PLY + 1][MoveList.MAX_MOVES];
+    private final int[][] killers = new int[Searcher.MAX_PLY + 1][2];
+    private final int[] history = new int[2 * 64 * 64];
+    // the gain after each capture of an exchange; an exchange has at most 32 captures
+    private final int[] gains = new int[33];
+
+    /**
+     * Forgets the killers and history of the last search
+     */
+    void clear() {
+        for (int[] killer : killers) {
+            killer[0] = Move.NONE;
+            killer[1] = Move.NONE;
+        }
+        Arrays.fill(history, 0);
+    }
+
+    /**
+     * Sorts the moves of the node at the given ply
+     *
+     * @param hashMove the move from the transposition table, or {@link Move#NONE}
+     */
+    void order(ChessGame game, MoveList moves, int ply, int hashMove) {
+        ChessBoard board = game.getBoard();
+        int color = game.getTeamTurn().ordinal();
+        int[] score = scores[ply];
+        int[] killer = killers[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int value;
+            if (move == hashMove) {
+                value = HASH_MOVE;
+            } else if (Move.isCapture(move)) {
+                value = (staticExchange(board, move) >= 0 ? GOOD_CAPTURE : BAD_CAPTURE) + captureOrder(board, move);
+            } else if (Move.promotion(move) == QUEEN) {
+                value = GOOD_CAPTURE;
+            } else if (move == killer[0]) {
+                value = FIRST_KILLER;
+            } else if (move == killer[1]) {
+                value = SECOND_KILLER;
+            } else {
+                value = history[historyIndex(color, move)];
+            }
+            // insertion sort, highest first and stable; lists are short and mostly
+            // quiet moves with equal scores
+            int j = i;
+            while (j > 0 && score[j - 1] < value) {
+                score[j] = score[j - 1];
+                moves.set(j, moves.get(j - 1));
+                j--;
+            }
+            score[j] = value;
+            moves.set(j, move);
+        }
+    }
+
+    /**
+     * @return whether the move at the index of the last ordered list for the ply is a
+     * capture that loses material
+     */
+    boolean isBadCapture(int ply, int index) {
+        return scores[ply][index] < 0;
+    }
+
+    /**
+     * Records a move that failed high, so it is tried early in sibling nodes
+     *
+     * @param color the team that played it
+     * @param depth the remaining depth of the node
+     */
+    void cutoff(int color, int move, int ply, int depth) {
+        if (Move.isCapture(move) || Move.isPromotion(move)) {
+            return;
+        }
+        int[] killer = killers[ply];
+        if (killer[0] != move) {
+            killer[1] = killer[0];
+            killer[0] = move;
+        }
+        int index = historyIndex(color, move);
+        history[index] += depth * depth;
+        if (history[index] > HISTORY_LIMIT) {
+            for (int i = 0; i < history.length; i++) {
+                history[i] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Plays out every capture on the target square of a capture, each side always
+     * capturing with its least valuable piece and free to stop when going on would
+     * lose material
+     *
+     * @return the material the moving side wins, or loses if negative, in centipawns
+     */
+    int staticExchange(ChessBoard board, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int moving = board.pieceAt(from);
+        int color = Bitboards.colorOf(moving);
+        long occupied = board.occupied() & ~Bitboards.bit(from);
+        int victim;
+        if (Move.isEnPassant(move)) {
+            victim = PAWN;
+            occupied &= ~Bitboards.bit(color == 0 ? to - 8 : to + 8);
+        } else {
+            victim = Bitboards.typeOf(board.pieceAt(to));
+        }
+
+        int depth = 0;
+        gains[0] = exchangeValue(victim);
+        int onSquare = Bitboards.typeOf(moving);
+        if (Move.isPromotion(move)) {
+            onSquare = Move.promotion(move);
+            gains[0] += exchangeValue(onSquare) - exchangeValue(PAWN);
+        }
+        int side = color ^ 1;
+        while (true) {
+            long attackers = board.attackersTo(to, occupied) & occupied & board.teamPieces(side);
+            if (attackers == 0) {
+                break;
+            }
+            int attacker = Bitboards.EMPTY;
+            long bit = 0;
+            for (int type : EXCHANGE_ORDER) {
+                long set = attackers & board.pieces(Bitboards.piece(side, type));
+                if (set != 0) {
+                    attacker = type;
+                    bit = set & -set;
+                    break;
+                }
+            }
+            // a king may only take last, when nothing defends the square
+            if (attacker == KING && (board.attackersTo(to, occupied & ~bit) & (occupied & ~bit)
+                    & board.teamPieces(side ^ 1)) != 0) {
+                break;
+            }
+            depth++;
+            gains[depth] = exchangeValue(onSquare) - gains[depth - 1];
+            occupied &= ~bit;
+            onSquare = attacker;
+            side ^= 1;
+        }
+        // each side stops capturing where that is better for it
+        while (depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+            depth--;
+        }
+        return gains[0];
+    }
+
+    private static int exchangeValue(int type) {
+        return type == KING ? KING_VALUE : Evaluation.pieceValue(type);
+    }
+
+    private static int captureOrder(ChessBoard board, int move) {
+        int victim = Move.isEnPassant(move) ? PAWN : Bitboards.typeOf(board.pieceAt(Move.to(move)));
+        int attacker = Bitboards.typeOf(board.pieceAt(Move.from(move)));
+        return Evaluation.pieceValue(victim) * 16 + ATTACKER_ORDER[attacker];
+    }
+
+    private static int historyIndex(int color, int move) {
+        return color << 12 | Move.from(move) << 6 | Move.to(move);
+    }
+}
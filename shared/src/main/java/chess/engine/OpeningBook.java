@@ -0,0 +1,202 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.random.RandomGenerator;
+
+/**
+ * An opening book in the Polyglot {@code .bin} layout, read through a memory-mapped
+ * file so it never has to be loaded onto the heap.
+ * <p>
+ * The file is a sequence of 16-byte big-endian entries, sorted by key: the position key
+ * (8 bytes), the move (2), its weight (2) and 4 bytes Polyglot uses for learning, which
+ * are ignored. Moves are written the Polyglot way: to square in bits 0-5, from square in
+ * bits 6-11, promotion in bits 12-14 as 1 knight to 4 queen, and castling as the king
+ * capturing its own rook. The keys are this engine's {@link ChessGame#positionKey()}
+ * rather than Polyglot's own hash, so books come from {@link OpeningBookBuilder}.
+ * <p>
+ * A lookup is a binary search of the mapped entries. Reads use absolute positions
+ * only, so one book may be shared by every thread.
+ */
+public final class OpeningBook {
+
+    public static final int ENTRY_BYTES = 16;
+
+    // Polyglot promotion codes by piece type ordinal: king, queen, bishop, knight, rook, pawn
+    private static final int[] PROMOTION_CODES = {0, 4, 2, 1, 3, 0};
+    private static final int[] PROMOTION_TYPES = {
+            -1,
+            ChessPiece.PieceType.KNIGHT.ordinal(),
+            ChessPiece.PieceType.BISHOP.ordinal(),
+            ChessPiece.PieceType.ROOK.ordinal(),
+            ChessPiece.PieceType.QUEEN.ordinal(),
+            // unused codes, which match no move
+            -2, -2, -2,
+    };
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(ByteBuffer entries) {
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_BYTES;
+    }
+
+    /**
+     * Maps a book file into memory. The mapping stays valid after the file is closed,
+     * until the book is garbage collected.
+     *
+     * @throws IOException if the file cannot be read, or is not a whole number of
+     *                     entries
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length % ENTRY_BYTES != 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + path + " is " + length + " bytes");
+            }
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+        }
+    }
+
+    /**
+     * Reads a book from entries already in memory, between the buffer's position and
+     * its limit
+     */
+    public static OpeningBook of(ByteBuffer entries) {
+        if (entries.remaining() % ENTRY_BYTES != 0) {
+            throw new IllegalArgumentException("Not an opening book: " + entries.remaining() + " bytes");
+        }
+        // a slice is big-endian whatever the order of the buffer it comes from
+        return new OpeningBook(entries.slice());
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return whether the book has a move for the position
+     */
+    public boolean contains(ChessGame game) {
+        int first = first(game.positionKey());
+        return first < size && key(first) == game.positionKey();
+    }
+
+    /**
+     * @return the book move with the highest weight, or {@link Move#NONE} if the
+     * position is not in the book
+     */
+    public int bestMove(ChessGame game) {
+        return choose(game, null);
+    }
+
+    /**
+     * Picks a book move at random, in proportion to the weights, so games do not all
+     * follow the same line
+     *
+     * @return the move, or {@link Move#NONE} if the position is not in the book
+     */
+    public int pickMove(ChessGame game, RandomGenerator random) {
+        return choose(game, random);
+    }
+
+    private int choose(ChessGame game, RandomGenerator random) {
+        long key = game.positionKey();
+        int first = first(key);
+        int total = 0;
+        int end = first;
+        for (; end < size && key(end) == key; end++) {
+            total += weight(end);
+        }
+        if (end == first) {
+            return Move.NONE;
+        }
+
+        MoveList legal = new MoveList();
+        game.legalMoves(legal);
+        int target = random == null || total == 0 ? -1 : random.nextInt(total);
+        int best = Move.NONE;
+        int bestWeight = -1;
+        for (int i = first; i < end; i++) {
+            int move = decode(legal, entries.getShort(i * ENTRY_BYTES + 8) & 0xFFFF);
+            int weight = weight(i);
+            if (move == Move.NONE) {
+                // the key matched another position's
+                continue;
+            }
+            if (target >= 0) {
+                target -= weight;
+                if (target < 0) {
+                    return move;
+                }
+            }
+            if (weight > bestWeight) {
+                best = move;
+                bestWeight = weight;
+            }
+        }
+        return best;
+    }
+
+    // the index of the first entry whose key is not below the given one, in unsigned order
+    private int first(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(key(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long key(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    private int weight(int index) {
+        return entries.getShort(index * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+
+    /**
+     * @return the move in the Polyglot encoding
+     */
+    static int encode(int move) {
+        int promotion = Move.isPromotion(move) ? PROMOTION_CODES[Move.promotion(move)] : 0;
+        return target(move) | Move.from(move) << 6 | promotion << 12;
+    }
+
+    private static int decode(MoveList legal, int code) {
+        int to = code & 63;
+        int from = (code >>> 6) & 63;
+        int promotion = PROMOTION_TYPES[(code >>> 12) & 7];
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            if (Move.from(move) == from && target(move) == to && Move.promotion(move) == promotion) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    // castling goes to the rook's square
+    private static int target(int move) {
+        int to = Move.to(move);
+        return Move.isCastle(move) ? (to & ~7) | ((to & 7) == 6 ? 7 : 0) : to;
+    }
+}
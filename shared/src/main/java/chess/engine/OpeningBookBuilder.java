@@ -0,0 +1,155 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.PgnReader;
+import chess.San;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an {@link OpeningBook} from games in PGN.
+ * <p>
+ * Every position in the first plies of each game counts the move played from it: 2
+ * points if the side that played it went on to win, 1 for a draw or an unknown result
+ * and nothing for a loss. Moves that score nothing are left out, and the weights of a
+ * position are scaled down together if the largest does not fit in 16 bits.
+ * <p>
+ * Run {@link #main(String[])} to build a book file from PGN files.
+ */
+public final class OpeningBookBuilder {
+
+    public static final int DEFAULT_PLIES = 24;
+
+    private final int maxPlies;
+    // position key to Polyglot move code to weight
+    private final Map<Long, Map<Integer, Long>> weights = new HashMap<>();
+
+    public OpeningBookBuilder() {
+        this(DEFAULT_PLIES);
+    }
+
+    /**
+     * @param maxPlies how many plies of each game go into the book
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Adds every game of a PGN file. A game with a move that is illegal or cannot be
+     * read is used up to that move.
+     *
+     * @return how many games were read
+     * @throws IOException if reading fails
+     */
+    public int addPgn(Reader in) throws IOException {
+        PgnReader reader = new PgnReader(in);
+        int games = 0;
+        for (PgnReader.Game game; (game = reader.next()) != null; games++) {
+            addGame(game);
+        }
+        return games;
+    }
+
+    /**
+     * Adds the opening of one game
+     *
+     * @return how many of its moves were added
+     */
+    public int addGame(PgnReader.Game pgn) {
+        ChessGame game;
+        try {
+            game = pgn.startingPosition();
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+        int whiteScore = switch (pgn.result()) {
+            case "1-0" -> 2;
+            case "0-1" -> 0;
+            default -> 1;
+        };
+        int plies = Math.min(maxPlies, pgn.moves().size());
+        for (int ply = 0; ply < plies; ply++) {
+            int move;
+            try {
+                move = San.parse(game, pgn.moves().get(ply));
+            } catch (IllegalArgumentException e) {
+                return ply;
+            }
+            int score = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? whiteScore : 2 - whiteScore;
+            if (score > 0) {
+                weights.computeIfAbsent(game.positionKey(), key -> new HashMap<>())
+                        .merge(OpeningBook.encode(move), (long) score, Long::sum);
+            }
+            game.makeMove(move);
+        }
+        return plies;
+    }
+
+    /**
+     * @return the number of distinct positions added so far
+     */
+    public int positions() {
+        return weights.size();
+    }
+
+    public void write(Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(out);
+        }
+    }
+
+    /**
+     * Writes the book's entries, sorted by key and then by falling weight
+     */
+    public void write(OutputStream out) throws IOException {
+        List<Long> keys = new ArrayList<>(weights.keySet());
+        keys.sort(Long::compareUnsigned);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        for (long key : keys) {
+            List<Map.Entry<Integer, Long>> moves = new ArrayList<>(weights.get(key).entrySet());
+            moves.sort(Map.Entry.<Integer, Long>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+            long max = moves.get(0).getValue();
+            for (Map.Entry<Integer, Long> move : moves) {
+                long weight = max <= 0xFFFF ? move.getValue() : move.getValue() * 0xFFFF / max;
+                data.writeLong(key);
+                data.writeShort(move.getKey());
+                data.writeShort((int) Math.max(weight, 1));
+                data.writeInt(0);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Builds a book: the first argument is the book file to write, the rest are PGN
+     * files to read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: OpeningBookBuilder <book.bin> <games.pgn>...");
+            System.exit(2);
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        int games = 0;
+        for (int i = 1; i < args.length; i++) {
+            try (Reader in = Files.newBufferedReader(Path.of(args[i]), StandardCharsets.ISO_8859_1)) {
+                games += builder.addPgn(in);
+            }
+        }
+        builder.write(Path.of(args[0]));
+        System.out.printf("%,d games, %,d positions%n", games, builder.positions());
+    }
+}
@@ -0,0 +1,154 @@
+package chess.engine;
+
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches one position on several threads with Lazy SMP: every thread runs its own
+ * iterative deepening search on its own copy of the game, and they only cooperate
+ * through a shared {@link TranspositionTable}. Each thread finds results the others
+ * can reuse, and half the helpers start one ply deeper so the threads spread over
+ * different parts of the tree.
+ * <p>
+ * The calling thread runs the main search. When it finishes, the helpers are stopped,
+ * and the result of the deepest completed search is returned. The helper threads
+ * are kept between searches; {@link #close()} ends them. One search runs at a time.
+ */
+public final class ParallelSearcher implements AutoCloseable {
+
+    public static final int DEFAULT_THREADS = Integer.getInteger("chess.threads",
+            Runtime.getRuntime().availableProcessors());
+
+    private final TranspositionTable table;
+    private final Searcher main;
+    private final Searcher[] helpers;
+    private final ExecutorService pool;
+
+    /**
+     * Creates a searcher using {@link #DEFAULT_THREADS} threads and a table of the
+     * default size
+     */
+    public ParallelSearcher() {
+        this(DEFAULT_THREADS, new TranspositionTable());
+    }
+
+    /**
+     * @param threads how many threads search, including the caller's
+     */
+    public ParallelSearcher(int threads) {
+        this(threads, new TranspositionTable());
+    }
+
+    /**
+     * @param threads how many threads search, including the caller's
+     * @param table   the table the threads share
+     */
+    public ParallelSearcher(int threads, TranspositionTable table) {
+        this(threads, table, null);
+    }
+
+    /**
+     * @param threads   how many threads search, including the caller's
+     * @param table     the table the threads share
+     * @param tablebase endgame tables the threads share, or null
+     */
+    public ParallelSearcher(int threads, TranspositionTable table, Tablebase tablebase) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one search thread: " + threads);
+        }
+        this.table = table;
+        main = new Searcher(table, tablebase);
+        helpers = new Searcher[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Searcher(table, tablebase);
+        }
+        pool = helpers.length == 0 ? null : Executors.newFixedThreadPool(helpers.length, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int threads() {
+        return helpers.length + 1;
+    }
+
+    public TranspositionTable table() {
+        return table;
+    }
+
+    /**
+     * Searches the position for the team to move
+     *
+     * @param game   the position to search; the main search uses it in place and
+     *               restores it, the helpers search copies
+     * @param limits when to stop; the node limit applies to each thread
+     * @return the best move of the deepest completed search, with the node count of
+     * all threads
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        table.newSearch();
+        main.clearStop();
+        List<Future<SearchResult>> results = new ArrayList<>(helpers.length);
+        for (int i = 0; i < helpers.length; i++) {
+            Searcher helper = helpers[i];
+            ChessGame copy = new ChessGame(game);
+            int firstDepth = 1 + (i & 1);
+            helper.clearStop();
+            results.add(pool.submit(() -> helper.search(copy, limits, firstDepth)));
+        }
+
+        SearchResult best;
+        try {
+            best = main.search(game, limits, 1);
+        } finally {
+            for (Searcher helper : helpers) {
+                helper.stop();
+            }
+        }
+
+        long nodes = best.nodes();
+        for (Future<SearchResult> future : results) {
+            SearchResult result = await(future);
+            nodes += result.nodes();
+            if (result.depth() > best.depth() && result.pv().length > 0) {
+                best = result;
+            }
+        }
+        return new SearchResult(best.move(), best.score(), best.depth(), nodes, best.millis(), best.pv());
+    }
+
+    /**
+     * Asks a running search to return as soon as it can
+     */
+    public void stop() {
+        main.stop();
+        for (Searcher helper : helpers) {
+            helper.stop();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static SearchResult await(Future<SearchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Search interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search helper failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package chess.engine;
+
+/**
+ * Search scores in centipawns from the point of view of the team to move.
+ * <p>
+ * Being checkmated scores {@code -MATE} plus the ply it happens at, so shorter mates
+ * score further from zero than longer ones.
+ */
+public final class Score {
+
+    public static final int DRAW = 0;
+    public static final int MATE = 32000;
+    public static final int INFINITY = 32500;
+
+    private Score() {
+    }
+
+    /**
+     * @return true if the score is a forced mate for either team
+     */
+    public static boolean isMate(int score) {
+        return Math.abs(score) >= MATE - Searcher.MAX_PLY;
+    }
+
+    /**
+     * @return the number of moves to a forced mate, negative if the team to move is
+     * the one mated, or 0 if the score is not a mate
+     */
+    public static int mateIn(int score) {
+        if (!isMate(score)) {
+            return 0;
+        }
+        int moves = (MATE - Math.abs(score) + 1) / 2;
+        return score > 0 ? moves : -moves;
+    }
+
+    /**
+     * @return the score in UCI style, e.g. {@code cp 35} or {@code mate -3}
+     */
+    public static String toString(int score) {
+        return isMate(score) ? "mate " + mateIn(score) : "cp " + score;
+    }
+}
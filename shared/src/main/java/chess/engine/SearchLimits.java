@@ -0,0 +1,35 @@
+package chess.engine;
+
+/**
+ * When a search stops: after completing a depth, after a time budget or after
+ * visiting a number of nodes, whichever comes first. The first iteration always
+ * completes so there is a move to play.
+ *
+ * @param depth  the deepest iteration to search, at most {@link #MAX_DEPTH}
+ * @param millis the time budget in milliseconds, or {@link Long#MAX_VALUE}
+ * @param nodes  the node budget, or {@link Long#MAX_VALUE}
+ */
+public record SearchLimits(int depth, long millis, long nodes) {
+
+    public static final int MAX_DEPTH = 64;
+
+    public SearchLimits {
+        if (depth < 1 || millis < 0 || nodes < 0) {
+            throw new IllegalArgumentException("Invalid search limits: depth " + depth
+                    + ", " + millis + " ms, " + nodes + " nodes");
+        }
+        depth = Math.min(depth, MAX_DEPTH);
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits time(long millis) {
+        return new SearchLimits(MAX_DEPTH, millis, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, nodes);
+    }
+}
@@ -0,0 +1,49 @@
+package chess.engine;
+
+import chess.ChessMove;
+import chess.Move;
+
+/**
+ * The outcome of a search: the best move found and the line it expects.
+ *
+ * @param move   the best move as encoded by {@link Move}, or {@link Move#NONE} if the
+ *               team to move has no legal move
+ * @param score  the score of the move, see {@link Score}
+ * @param depth  the deepest iteration that completed
+ * @param nodes  the number of positions visited
+ * @param millis the time taken
+ * @param pv     the principal variation, starting with the best move
+ */
+public record SearchResult(int move, int score, int depth, long nodes, long millis, int[] pv) {
+
+    /**
+     * @return the best move, or null if there is none
+     */
+    public ChessMove bestMove() {
+        return move == Move.NONE ? null : Move.toChessMove(move);
+    }
+
+    public long nodesPerSecond() {
+        return nodes * 1000 / Math.max(1, millis);
+    }
+
+    /**
+     * @return the principal variation in coordinate notation, e.g. {@code e2e4 e7e5}
+     */
+    public String pvString() {
+        StringBuilder sb = new StringBuilder();
+        for (int move : pv) {
+            if (!sb.isEmpty()) {
+                sb.append(' ');
+            }
+            sb.append(Move.toString(move));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d score %s nodes %d time %d pv %s",
+                depth, Score.toString(score), nodes, millis, pvString());
+    }
+}
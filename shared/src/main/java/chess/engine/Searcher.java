@@ -0,0 +1,467 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Move;
+import chess.MoveList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Finds the best move in a position with a negamax alpha-beta search, deepened one
+ * ply at a time until the {@link SearchLimits} run out, with a quiescence search of
+ * captures and promotions at the leaves. Results are kept in a
+ * {@link TranspositionTable}, which cuts off positions already searched deeply enough
+ * and supplies the best move found before to try first; {@link MoveOrdering} sorts
+ * the rest.
+ * <p>
+ * The search plays moves on the caller's game with {@link ChessGame#makeMove(int)} and
+ * {@link ChessGame#unmakeMove()} and leaves it as it was. Move lists and the principal
+ * variation table are allocated once per searcher, so a search allocates nothing
+ * until it builds its result. A searcher is meant to be reused by one thread;
+ * only {@link #stop()} and {@link #ponderHit()} may be called from another.
+ */
+public final class Searcher {
+
+    /**
+     * The deepest a search line can go, counting check extensions and quiescence
+     */
+    public static final int MAX_PLY = 128;
+
+    // how many nodes pass between checks of the clock and the stop flag
+    private static final int CHECK_INTERVAL_MASK = 1023;
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    // pv[ply] holds the best line found from ply onwards, in pv[ply][ply..pvLength[ply])
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final int[] previousPv = new int[MAX_PLY + 1];
+    private int previousPvLength;
+    private boolean followPv;
+    private final MoveOrdering ordering = new MoveOrdering();
+    // root moves an analysis has already given a line for
+    private final int[] excludedRootMoves = new int[MoveList.MAX_MOVES];
+    private int excludedCount;
+
+    private final TranspositionTable table;
+    private final Tablebase tablebase;
+    private ChessGame game;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private long timeLimit;
+    // a ponder search has no deadline until the ponder hit
+    private boolean pondering;
+    private volatile boolean ponderHit;
+    private volatile long ponderHitTime;
+    private int completedDepth;
+    private boolean aborted;
+    private volatile boolean stopRequested;
+
+    /**
+     * Creates a searcher with its own transposition table of the default size
+     */
+    public Searcher() {
+        this(new TranspositionTable());
+    }
+
+    /**
+     * @param table the transposition table to use, which may be shared with other
+     *              searchers
+     */
+    public Searcher(TranspositionTable table) {
+        this(table, null);
+    }
+
+    /**
+     * @param table     the transposition table to use, which may be shared with other
+     *                  searchers
+     * @param tablebase endgame tables to score few-piece positions with, or null
+     */
+    public Searcher(TranspositionTable table, Tablebase tablebase) {
+        this.table = table;
+        this.tablebase = tablebase;
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Searches the position for the team to move
+     *
+     * @param game   the position to search; it is changed during the search and
+     *               restored before returning
+     * @param limits when to stop
+     * @return the best move found, from the deepest iteration that completed
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        table.newSearch();
+        stopRequested = false;
+        return search(game, limits, 1);
+    }
+
+    /**
+     * Gets ready for {@link #ponder}, clearing any stop request and earlier ponder hit.
+     * A {@link #stop()} or {@link #ponderHit()} made after this counts even if it comes
+     * before the ponder search has started.
+     */
+    public void preparePonder() {
+        stopRequested = false;
+        ponderHit = false;
+    }
+
+    /**
+     * Searches on the opponent's time, in the position after the move the opponent is
+     * expected to play. The time limit only starts at {@link #ponderHit()}, so until then
+     * the search runs until it is stopped or reaches the depth or node limit. Call
+     * {@link #preparePonder()} first.
+     *
+     * @param game   the expected position; it is changed during the search and
+     *               restored before returning
+     * @param limits the time limit counts from the ponder hit, the others from now
+     * @return the best move found, from the deepest iteration that completed
+     */
+    public SearchResult ponder(ChessGame game, SearchLimits limits) {
+        table.newSearch();
+        pondering = true;
+        return search(game, limits, 1);
+    }
+
+    /**
+     * Tells a ponder search that the expected move was played, starting its clock
+     */
+    public void ponderHit() {
+        ponderHitTime = System.nanoTime();
+        ponderHit = true;
+    }
+
+    /**
+     * Searches without starting a new table generation or clearing a stop request,
+     * for helpers of a {@link ParallelSearcher}
+     *
+     * @param firstDepth the first iteration's depth
+     */
+    SearchResult search(ChessGame game, SearchLimits limits, int firstDepth) {
+        long start = begin(game, limits);
+        int bestScore = 0;
+        for (int depth = Math.min(firstDepth, limits.depth()); depth <= limits.depth(); depth++) {
+            followPv = true;
+            int score = negamax(depth, 0, -Score.INFINITY, Score.INFINITY);
+            if (aborted) {
+                break;
+            }
+            bestScore = score;
+            completedDepth = depth;
+            previousPvLength = pvLength[0];
+            System.arraycopy(pv[0], 0, previousPv, 0, previousPvLength);
+            // a forced mate within the searched depth cannot get any shorter
+            if (previousPvLength == 0 || (Score.isMate(score) && Math.abs(Score.mateIn(score)) * 2 - 1 <= depth)) {
+                break;
+            }
+        }
+        this.game = null;
+        pondering = false;
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        int move = previousPvLength > 0 ? previousPv[0] : Move.NONE;
+        return new SearchResult(move, bestScore, completedDepth, nodes, millis,
+                Arrays.copyOf(previousPv, previousPvLength));
+    }
+
+    /**
+     * Searches the best few moves of the position, each with its own line, as for an
+     * analysis board. Every iteration searches the best line as usual, then the next
+     * ones with the moves already shown left out at the root.
+     *
+     * @param game     the position to search; it is changed during the search and
+     *                 restored before returning
+     * @param limits   when to stop
+     * @param lines    how many of the best moves to find
+     * @param listener called on the searching thread with the lines of each iteration
+     *                 that completes, best first
+     * @return the lines of the deepest iteration that completed, best first; empty if
+     * the team to move has no legal move
+     */
+    public List<SearchResult> analyze(ChessGame game, SearchLimits limits, int lines,
+                                      Consumer<List<SearchResult>> listener) {
+        if (lines < 1) {
+            throw new IllegalArgumentException("Need at least one line: " + lines);
+        }
+        table.newSearch();
+        stopRequested = false;
+        long start = begin(game, limits);
+        MoveList rootMoves = new MoveList();
+        game.legalMoves(rootMoves);
+        lines = Math.min(lines, rootMoves.size());
+
+        int[][] previousLines = new int[lines][];
+        List<SearchResult> completed = List.of();
+        for (int depth = 1; depth <= limits.depth() && lines > 0; depth++) {
+            List<SearchResult> results = new ArrayList<>(lines);
+            excludedCount = 0;
+            for (int line = 0; line < lines; line++) {
+                int[] previous = previousLines[line] == null ? new int[0] : previousLines[line];
+                System.arraycopy(previous, 0, previousPv, 0, previous.length);
+                previousPvLength = previous.length;
+                followPv = true;
+                int score = negamax(depth, 0, -Score.INFINITY, Score.INFINITY);
+                if (aborted) {
+                    break;
+                }
+                int[] variation = Arrays.copyOf(pv[0], pvLength[0]);
+                results.add(new SearchResult(variation[0], score, depth, nodes,
+                        (System.nanoTime() - start) / 1_000_000, variation));
+                excludedRootMoves[excludedCount++] = variation[0];
+            }
+            if (aborted) {
+                break;
+            }
+            completedDepth = depth;
+            results.sort(Comparator.comparingInt(SearchResult::score).reversed());
+            for (int line = 0; line < lines; line++) {
+                previousLines[line] = results.get(line).pv();
+            }
+            completed = List.copyOf(results);
+            listener.accept(completed);
+        }
+        excludedCount = 0;
+        this.game = null;
+        return completed;
+    }
+
+    /**
+     * Resets the per-search state
+     *
+     * @return the time the search started, from {@link System#nanoTime()}
+     */
+    private long begin(ChessGame game, SearchLimits limits) {
+        long start = System.nanoTime();
+        this.game = game;
+        nodes = 0;
+        nodeLimit = limits.nodes();
+        timeLimit = limits.millis();
+        deadline = pondering ? Long.MAX_VALUE : deadline(start, timeLimit);
+        completedDepth = 0;
+        aborted = false;
+        previousPvLength = 0;
+        ordering.clear();
+        return start;
+    }
+
+    private static long deadline(long start, long millis) {
+        return millis >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE : start + millis * 1_000_000;
+    }
+
+    /**
+     * Asks a running search to return as soon as it can with the best move of its
+     * last completed iteration
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    void clearStop() {
+        stopRequested = false;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (countNode()) {
+            return 0;
+        }
+        if (ply > 0 && (game.halfmoveClock() >= 100 || game.repetitionCount() >= 2)) {
+            return Score.DRAW;
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluation.evaluate(game);
+        }
+        if (ply > 0 && tablebase != null && Long.bitCount(game.getBoard().occupied()) <= Tablebase.MAX_PIECES) {
+            int score = tablebase.probe(game);
+            if (score != Tablebase.UNKNOWN) {
+                // tablebase mates count from this position, search mates from the root
+                return score > Score.DRAW ? score - ply : score < Score.DRAW ? score + ply : score;
+            }
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiesce(ply, alpha, beta);
+        }
+
+        long key = game.positionKey();
+        long entry = table.probe(key);
+        if (entry != 0 && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+            int score = TranspositionTable.score(entry, ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER && score >= beta)
+                    || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                return score;
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        game.legalMoves(moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -Score.MATE + ply : Score.DRAW;
+        }
+        ordering.order(game, moves, ply, entry != 0 ? TranspositionTable.move(entry) : Move.NONE);
+        if (followPv) {
+            followPv = moveToFront(moves, ply < previousPvLength ? previousPv[ply] : Move.NONE);
+        }
+
+        int originalAlpha = alpha;
+        int best = -Score.INFINITY;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (ply == 0 && isExcluded(move)) {
+                continue;
+            }
+            game.makeMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            game.unmakeMove();
+            followPv = false;
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        ordering.cutoff(game.getTeamTurn().ordinal(), move, ply, depth);
+                        break;
+                    }
+                }
+            }
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        // with moves left out the root's score is not the position's
+        if (ply > 0 || excludedCount == 0) {
+            table.store(key, bound == TranspositionTable.UPPER ? Move.NONE : bestMove, best, depth, bound, ply);
+        }
+        return best;
+    }
+
+    private boolean isExcluded(int move) {
+        for (int i = 0; i < excludedCount; i++) {
+            if (excludedRootMoves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Searches captures and promotions until the position is quiet, so a leaf is not
+     * scored in the middle of an exchange. Every evasion is searched when in check.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (countNode()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluation.evaluate(game);
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        int best = -Score.INFINITY;
+        if (!inCheck) {
+            // the team to move can usually do at least as well as standing pat
+            best = Evaluation.evaluate(game);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        MoveList moves = moveLists[ply];
+        game.legalMoves(moves);
+        if (inCheck && moves.isEmpty()) {
+            return -Score.MATE + ply;
+        }
+        ordering.order(game, moves, ply, Move.NONE);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            // out of check, only captures and promotions that do not lose material
+            if (!inCheck && ((!Move.isCapture(move) && !Move.isPromotion(move)) || ordering.isBadCapture(ply, i))) {
+                continue;
+            }
+            game.makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Counts a visited node and checks the limits every so often. Nothing stops the
+     * first iteration, so the search always has a move.
+     *
+     * @return true if the search should unwind
+     */
+    private boolean countNode() {
+        nodes++;
+        if (!aborted && completedDepth > 0 && (nodes >= nodeLimit
+                || ((nodes & CHECK_INTERVAL_MASK) == 0 && (stopRequested || outOfTime())))) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    private boolean outOfTime() {
+        if (pondering) {
+            if (!ponderHit) {
+                return false;
+            }
+            pondering = false;
+            deadline = deadline(ponderHitTime, timeLimit);
+        }
+        return System.nanoTime() >= deadline;
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+        pvLength[ply] = pvLength[ply + 1];
+    }
+
+    /**
+     * Moves the given move to the front of the list, keeping the others in order
+     *
+     * @return false if the list does not contain it
+     */
+    private static boolean moveToFront(MoveList moves, int move) {
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.get(i) == move) {
+                for (int j = i; j > 0; j--) {
+                    moves.set(j, moves.get(j - 1));
+                }
+                moves.set(0, move);
+                return true;
+            }
+        }
+        return false;
+    }
+}
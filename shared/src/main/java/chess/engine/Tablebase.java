@@ -0,0 +1,326 @@
+package chess.engine;
+
+import chess.Attacks;
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Perfect play for endings with at most {@link #MAX_PIECES} pieces, kings included,
+ * read from tables made by {@link TablebaseGenerator}.
+ * <p>
+ * There is one table per material balance, such as {@code KQKR} or {@code KPK}, in a
+ * file named after it in the tablebase directory. A table holds one byte per position:
+ * 0 for a draw, {@code n} if the side to move mates in {@code n} plies, or
+ * {@code -(n + 1)} if it is mated in {@code n} plies, so the sign is the
+ * win/draw/loss result and the magnitude the distance to mate. Tables are stored with
+ * the stronger side as white and the white king on files a to d; other positions are
+ * flipped or mirrored into that form before the lookup. Positions with castling rights
+ * or an en passant capture are not covered.
+ * <p>
+ * Tables are memory-mapped the first time a position needs them. Probing allocates
+ * nothing, and one tablebase may be shared by every search thread.
+ */
+public final class Tablebase {
+
+    public static final int MAX_PIECES = 4;
+
+    /**
+     * Returned by a probe when the position has too many pieces or its table is missing
+     */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    static final int KING = ChessPiece.PieceType.KING.ordinal();
+    static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+    // the order pieces are named and indexed in, by type ordinal: queen, rook, bishop,
+    // knight, pawn
+    private static final int[] TYPE_RANK = {0, 1, 3, 4, 2, 5};
+    private static final String TYPE_LETTERS = "KQBNRP";
+    private static final ByteBuffer MISSING = ByteBuffer.allocate(0);
+
+    private final Path directory;
+    private final AtomicReferenceArray<ByteBuffer> tables = new AtomicReferenceArray<>(256);
+
+    /**
+     * @param directory where the table files are; tables that are not there are
+     *                  reported as {@link #UNKNOWN}
+     */
+    public Tablebase(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Looks up the position of a game
+     *
+     * @return the score for the team to move, as a search would report it:
+     * {@link Score#DRAW}, or a mate score with the exact distance to mate; or
+     * {@link #UNKNOWN} if the tablebase does not cover the position
+     */
+    public int probe(ChessGame game) {
+        if (game.castlingRights() != 0) {
+            return UNKNOWN;
+        }
+        int color = game.getTeamTurn().ordinal();
+        int enPassant = game.enPassantSquare();
+        ChessBoard board = game.getBoard();
+        if (enPassant >= 0 && (Attacks.pawn(color ^ 1, enPassant) & board.pieces(Bitboards.piece(color, PAWN))) != 0) {
+            return UNKNOWN;
+        }
+        return probe(board, game.getTeamTurn());
+    }
+
+    /**
+     * Looks up a placement, assuming neither side can castle or capture en passant
+     *
+     * @return as {@link #probe(ChessGame)}
+     */
+    public int probe(ChessBoard board, ChessGame.TeamColor toMove) {
+        long occupied = board.occupied();
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            return UNKNOWN;
+        }
+        int whiteKing = board.kingSquare(0);
+        int blackKing = board.kingSquare(1);
+        if (whiteKing < 0 || blackKing < 0) {
+            return UNKNOWN;
+        }
+        if (Long.bitCount(occupied) == 2) {
+            return Score.DRAW;
+        }
+        long location = locate(board, toMove.ordinal());
+        int value = read(key(location), index(location));
+        return value == UNKNOWN ? UNKNOWN : score(value);
+    }
+
+    /**
+     * @return where a placement of both kings and up to two other pieces is stored
+     * @see #locate(int, int, int, int, int, int, int)
+     */
+    static long locate(ChessBoard board, int toMove) {
+        int whiteKing = board.kingSquare(0);
+        int blackKing = board.kingSquare(1);
+        long others = board.occupied() & ~Bitboards.bit(whiteKing) & ~Bitboards.bit(blackKing);
+        int square1 = others == 0 ? 0 : Long.numberOfTrailingZeros(others);
+        int piece1 = others == 0 ? Bitboards.EMPTY : board.pieceAt(square1);
+        others &= others - 1;
+        int square2 = others == 0 ? 0 : Long.numberOfTrailingZeros(others);
+        int piece2 = others == 0 ? Bitboards.EMPTY : board.pieceAt(square2);
+        return locate(whiteKing, blackKing, piece1, square1, piece2, square2, toMove);
+    }
+
+    /**
+     * @return the stored value of a position, or {@link #UNKNOWN} if its table is missing
+     */
+    int read(int key, int index) {
+        ByteBuffer table = table(key);
+        return table == MISSING ? UNKNOWN : table.get(index);
+    }
+
+    private ByteBuffer table(int key) {
+        ByteBuffer table = tables.get(key);
+        if (table == null) {
+            table = map(key);
+            if (!tables.compareAndSet(key, null, table)) {
+                table = tables.get(key);
+            }
+        }
+        return table;
+    }
+
+    private ByteBuffer map(int key) {
+        Path file = file(key);
+        if (!Files.isRegularFile(file)) {
+            return MISSING;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != size(key)) {
+                return MISSING;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            return MISSING;
+        }
+    }
+
+    Path file(int key) {
+        return directory.resolve(name(key) + ".tb");
+    }
+
+    /**
+     * @return the score of a stored value, with mate scores counted from the position
+     */
+    static int score(int value) {
+        if (value > 0) {
+            return Score.MATE - value;
+        }
+        if (value < 0) {
+            return -Score.MATE - value - 1;
+        }
+        return Score.DRAW;
+    }
+
+    /**
+     * Finds the table and entry of a position. Pieces other than the kings are given
+     * as a piece code and a square; a missing second piece has code
+     * {@link Bitboards#EMPTY}.
+     *
+     * @param color the team to move
+     * @return the material key in the high 32 bits and the index in the low 32 bits
+     */
+    static long locate(int whiteKing, int blackKing, int piece1, int square1, int piece2, int square2, int color) {
+        if (piece1 < 0) {
+            piece1 = piece2;
+            square1 = square2;
+            piece2 = Bitboards.EMPTY;
+        }
+        if (blackIsStronger(piece1, piece2)) {
+            int king = whiteKing;
+            whiteKing = blackKing ^ 56;
+            blackKing = king ^ 56;
+            piece1 = otherColor(piece1);
+            square1 ^= 56;
+            if (piece2 >= 0) {
+                piece2 = otherColor(piece2);
+                square2 ^= 56;
+            }
+            color ^= 1;
+        }
+        if ((whiteKing & 7) >= 4) {
+            whiteKing ^= 7;
+            blackKing ^= 7;
+            square1 ^= 7;
+            square2 ^= 7;
+        }
+        if (piece2 >= 0 && (rank(piece2) < rank(piece1) || (piece2 == piece1 && square2 < square1))) {
+            int piece = piece1;
+            piece1 = piece2;
+            piece2 = piece;
+            int square = square1;
+            square1 = square2;
+            square2 = square;
+        }
+
+        int index = (color * 32 + (whiteKing >>> 3) * 4 + (whiteKing & 7)) * 64 + blackKing;
+        if (piece1 >= 0) {
+            index = index * 64 + square1;
+        }
+        if (piece2 >= 0) {
+            index = index * 64 + square2;
+        }
+        return (long) ((piece1 + 1) << 4 | (piece2 + 1)) << 32 | index;
+    }
+
+    static int key(long location) {
+        return (int) (location >>> 32);
+    }
+
+    static int index(long location) {
+        return (int) location;
+    }
+
+    /**
+     * @return the first piece of a material key, the stronger side's strongest, or
+     * {@link Bitboards#EMPTY}
+     */
+    static int piece1(int key) {
+        return (key >>> 4) - 1;
+    }
+
+    static int piece2(int key) {
+        return (key & 15) - 1;
+    }
+
+    /**
+     * @return the number of entries in the table of a material key
+     */
+    static int size(int key) {
+        int size = 2 * 32 * 64;
+        if (piece1(key) >= 0) {
+            size *= 64;
+        }
+        if (piece2(key) >= 0) {
+            size *= 64;
+        }
+        return size;
+    }
+
+    /**
+     * @return the name of a material key, such as {@code KRKP}
+     */
+    static String name(int key) {
+        StringBuilder white = new StringBuilder("K");
+        StringBuilder black = new StringBuilder("K");
+        for (int piece : new int[]{piece1(key), piece2(key)}) {
+            if (piece >= 0) {
+                (Bitboards.colorOf(piece) == 0 ? white : black).append(TYPE_LETTERS.charAt(Bitboards.typeOf(piece)));
+            }
+        }
+        return white.append(black).toString();
+    }
+
+    /**
+     * @param name a material balance such as {@code KQKR}, {@code KRPK} or {@code KKQ}:
+     *             each side's king and then its other pieces, white first
+     * @return the material key of its table
+     * @throws IllegalArgumentException if the name is malformed or is not an ending of
+     *                                  3 to {@link #MAX_PIECES} pieces
+     */
+    static int key(String name) {
+        int blackStart = name.indexOf('K', 1);
+        if (!name.startsWith("K") || blackStart < 0 || name.length() < 3 || name.length() > MAX_PIECES) {
+            throw new IllegalArgumentException("Not a tablebase ending: " + name);
+        }
+        int[] pieces = {Bitboards.EMPTY, Bitboards.EMPTY};
+        int count = 0;
+        for (int i = 1; i < name.length(); i++) {
+            if (i == blackStart) {
+                continue;
+            }
+            int type = TYPE_LETTERS.indexOf(name.charAt(i));
+            if (type <= 0) {
+                throw new IllegalArgumentException("Not a tablebase ending: " + name);
+            }
+            pieces[count++] = Bitboards.piece(i < blackStart ? 0 : 1, type);
+        }
+        // the squares do not matter for the key
+        return key(locate(0, 63, pieces[0], 8, pieces[1], 16, 0));
+    }
+
+    private static boolean blackIsStronger(int piece1, int piece2) {
+        int black = (piece1 >= 0 && Bitboards.colorOf(piece1) == 1 ? 1 : 0)
+                + (piece2 >= 0 && Bitboards.colorOf(piece2) == 1 ? 1 : 0);
+        int white = (piece1 >= 0 ? 1 : 0) + (piece2 >= 0 ? 1 : 0) - black;
+        if (black != white) {
+            return black > white;
+        }
+        if (black != 1) {
+            return false;
+        }
+        // one piece each: the better piece is stronger
+        int whitePiece = Bitboards.colorOf(piece1) == 0 ? piece1 : piece2;
+        int blackPiece = whitePiece == piece1 ? piece2 : piece1;
+        return TYPE_RANK[Bitboards.typeOf(blackPiece)] < TYPE_RANK[Bitboards.typeOf(whitePiece)];
+    }
+
+    private static int otherColor(int piece) {
+        return piece >= Bitboards.PIECE_TYPES ? piece - Bitboards.PIECE_TYPES : piece + Bitboards.PIECE_TYPES;
+    }
+
+    // white pieces before black ones, each from queen down to pawn
+    private static int rank(int piece) {
+        return Bitboards.colorOf(piece) * Bitboards.PIECE_TYPES + TYPE_RANK[Bitboards.typeOf(piece)];
+    }
+}
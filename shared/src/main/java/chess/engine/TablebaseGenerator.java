@@ -0,0 +1,678 @@
+package chess.engine;
+
+import chess.Attacks;
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds {@link Tablebase} files by retrograde analysis.
+ * <p>
+ * One pass over a table finds the illegal positions, the mates and stalemates, and
+ * for every other position counts its moves that stay in the table and looks up the
+ * ones that capture or promote in the smaller tables, which are built first. Then,
+ * ply by ply, the positions settled at that distance to mate are taken back a move:
+ * the position before a loss is a win one ply further, and a position whose every
+ * move leads to a win for the opponent is a loss once the last of them is settled.
+ * Positions never settled are draws. Each pass is split over a pool of threads.
+ * <p>
+ * Entries assume no en passant capture is possible, so a double push the opponent
+ * can take en passant is not scored from the entry it leads to. Its value is the
+ * better for the opponent of that entry and the en passant captures, which lead to a
+ * smaller table; it is settled after each pass, once either side of it is known.
+ * <p>
+ * Run {@link #main(String[])} to build tables from the command line.
+ */
+public final class TablebaseGenerator {
+
+    // working values, beside the final ones of Tablebase
+    private static final byte UNRESOLVED = Byte.MIN_VALUE;
+    private static final byte ILLEGAL = Byte.MAX_VALUE;
+    // the longest distance to mate a table can hold, in plies
+    private static final int MAX_PLIES = 126;
+    private static final byte CANNOT_LOSE = -1;
+    private static final int NO_WIN = Integer.MAX_VALUE;
+    private static final int[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN.ordinal(), ChessPiece.PieceType.ROOK.ordinal(),
+            ChessPiece.PieceType.BISHOP.ordinal(), ChessPiece.PieceType.KNIGHT.ordinal(),
+    };
+
+    private final Tablebase tablebase;
+    private final int threads;
+
+    /**
+     * @param directory where to write the tables, and where tables already built are
+     *                  read from
+     * @param threads   how many threads to generate with
+     */
+    public TablebaseGenerator(Path directory, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread: " + threads);
+        }
+        this.tablebase = new Tablebase(directory);
+        this.threads = threads;
+    }
+
+    /**
+     * @return the names of every ending of 3 to {@link Tablebase#MAX_PIECES} pieces,
+     * smaller ones first
+     */
+    public static List<String> endings() {
+        String pieces = "QRBNP";
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = 0; i < pieces.length(); i++) {
+            names.add("K" + pieces.charAt(i) + "K");
+        }
+        for (int i = 0; i < pieces.length(); i++) {
+            for (int j = i; j < pieces.length(); j++) {
+                names.add("K" + pieces.charAt(i) + pieces.charAt(j) + "K");
+                names.add(Tablebase.name(Tablebase.key("K" + pieces.charAt(i) + "K" + pieces.charAt(j))));
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Builds the table for an ending, and first any smaller tables it leads to by a
+     * capture or promotion. Tables already in the directory are kept.
+     *
+     * @param name the ending, such as {@code KQKR}
+     * @throws IOException if a table cannot be written
+     */
+    public void generate(String name) throws IOException {
+        generate(Tablebase.key(name));
+    }
+
+    private void generate(int key) throws IOException {
+        if (Tablebase.piece1(key) < 0 || Files.isRegularFile(tablebase.file(key))) {
+            return;
+        }
+        for (int dependency : dependencies(key)) {
+            generate(dependency);
+        }
+        byte[] table = new Build(key).run();
+        Path file = tablebase.file(key);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.createDirectories(file.getParent());
+        Files.write(temporary, table);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // the tables a capture or a promotion leads to
+    private static List<Integer> dependencies(int key) {
+        int[] pieces = {Tablebase.piece1(key), Tablebase.piece2(key)};
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            int piece = pieces[i];
+            int other = pieces[1 - i];
+            if (piece < 0) {
+                continue;
+            }
+            keys.add(Tablebase.key(Tablebase.locate(0, 63, other, 8, Bitboards.EMPTY, 0, 0)));
+            if (Bitboards.typeOf(piece) == Tablebase.PAWN) {
+                for (int type : PROMOTIONS) {
+                    int promoted = Bitboards.piece(Bitboards.colorOf(piece), type);
+                    keys.add(Tablebase.key(Tablebase.locate(0, 63, promoted, 8, other, 16, 0)));
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * The working state of one table being built
+     */
+    private final class Build {
+
+        private final int key;
+        private final int piece1;
+        private final int piece2;
+        private final int size;
+        private final byte[] values;
+        // scheduled distance of a win or loss found before its pass comes, or 0
+        private final byte[] scheduled;
+        // moves staying in the table not yet known to lose for the mover, a byte per
+        // position packed four to an int, as counts are updated from several threads
+        private final AtomicIntegerArray remaining;
+        // the longest win for the opponent after a capture or promotion, or
+        // CANNOT_LOSE if one of those moves draws or wins
+        private final byte[] crossWins;
+        // double pushes the opponent can take en passant that lead into the table
+        private final ConcurrentLinkedQueue<Passage> passages = new ConcurrentLinkedQueue<>();
+
+        Build(int key) {
+            this.key = key;
+            this.piece1 = Tablebase.piece1(key);
+            this.piece2 = Tablebase.piece2(key);
+            this.size = Tablebase.size(key);
+            this.values = new byte[size];
+            this.scheduled = new byte[size];
+            this.remaining = new AtomicIntegerArray((size + 3) / 4);
+            this.crossWins = new byte[size];
+        }
+
+        byte[] run() throws IOException {
+            ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "tablebase-generator");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                forEachChunk(pool, (scratch, start, end) -> {
+                    for (int index = start; index < end; index++) {
+                        initialize(scratch, index);
+                    }
+                });
+                List<Passage> unsettled = new ArrayList<>(passages);
+                for (int plies = 0; plies <= MAX_PLIES; plies++) {
+                    int pass = plies;
+                    AtomicLong settled = new AtomicLong();
+                    AtomicInteger latest = new AtomicInteger();
+                    forEachChunk(pool, (scratch, start, end) -> {
+                        long count = 0;
+                        int last = 0;
+                        for (int index = start; index < end; index++) {
+                            int due = scheduled[index];
+                            if (values[index] == UNRESOLVED && due != 0) {
+                                if (due == pass) {
+                                    values[index] = encode(pass);
+                                } else {
+                                    last = Math.max(last, due);
+                                }
+                            }
+                            if (values[index] == encode(pass)) {
+                                count++;
+                            }
+                        }
+                        settled.addAndGet(count);
+                        latest.accumulateAndGet(last, Math::max);
+                    });
+                    if (settled.get() == 0 && latest.get() <= pass && lastDue(unsettled) < pass) {
+                        break;
+                    }
+                    if (pass == MAX_PLIES) {
+                        throw new IllegalStateException(Tablebase.name(key) + " has mates longer than "
+                                + MAX_PLIES + " plies");
+                    }
+                    forEachChunk(pool, (scratch, start, end) -> {
+                        for (int index = start; index < end; index++) {
+                            if (values[index] == encode(pass)) {
+                                retract(scratch, index, pass);
+                            }
+                        }
+                    });
+                    settlePassages(unsettled, pass);
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+            for (int index = 0; index < size; index++) {
+                if (values[index] == UNRESOLVED || values[index] == ILLEGAL) {
+                    values[index] = 0;
+                }
+            }
+            return values;
+        }
+
+        private void initialize(Scratch scratch, int index) {
+            if (!scratch.decode(index) || scratch.opponentInCheck()) {
+                values[index] = ILLEGAL;
+                return;
+            }
+            MoveList moves = scratch.moves;
+            moves.clear();
+            MoveGenerator.generateAllLegal(scratch.board, scratch.color, 0, -1, moves);
+            if (moves.isEmpty()) {
+                values[index] = scratch.inCheck() ? encode(0) : 0;
+                return;
+            }
+            values[index] = UNRESOLVED;
+            int inTable = 0;
+            int fastestWin = Integer.MAX_VALUE;
+            int longestLoss = 0;
+            boolean canLose = true;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                long child = scratch.child(move);
+                int value;
+                if (Move.isDoublePush(move) && scratch.pushAllowsEnPassant(move)) {
+                    if (scratch.otherReplies > 0) {
+                        inTable++;
+                        passages.add(new Passage(index, Tablebase.index(child), scratch.enPassantValue));
+                        continue;
+                    }
+                    // taking en passant is the only reply
+                    value = scratch.enPassantValue;
+                } else if (Tablebase.key(child) == key) {
+                    inTable++;
+                    continue;
+                } else {
+                    value = read(child);
+                }
+                if (value < 0) {
+                    fastestWin = Math.min(fastestWin, -value);
+                    canLose = false;
+                } else if (value == 0) {
+                    canLose = false;
+                } else {
+                    longestLoss = Math.max(longestLoss, value);
+                }
+            }
+            remaining.getAndAdd(index >>> 2, inTable << lane(index));
+            crossWins[index] = canLose ? (byte) longestLoss : CANNOT_LOSE;
+            if (fastestWin != Integer.MAX_VALUE) {
+                // a capture or promotion into a lost position: mated in n plies, stored
+                // as -(n + 1), so the win takes -value plies
+                scheduled[index] = (byte) fastestWin;
+            } else if (canLose && inTable == 0) {
+                scheduled[index] = (byte) (longestLoss + 1);
+            }
+        }
+
+        // takes back every move into a position settled at this distance
+        private void retract(Scratch scratch, int index, int pass) {
+            scratch.decode(index);
+            boolean lost = pass % 2 == 0;
+            int mover = scratch.color ^ 1;
+            long occupied = scratch.board.occupied();
+            for (int p = 0; p < scratch.count; p++) {
+                int piece = scratch.pieces[p];
+                if (Bitboards.colorOf(piece) != mover) {
+                    continue;
+                }
+                int to = scratch.squares[p];
+                long origins = origins(piece, to, occupied);
+                while (origins != 0) {
+                    int from = Long.numberOfTrailingZeros(origins);
+                    origins &= origins - 1;
+                    // a double push that allows en passant is settled as a passage
+                    if (Math.abs(to - from) == 16 && scratch.allowsEnPassant((from + to) / 2)) {
+                        continue;
+                    }
+                    scratch.squares[p] = from;
+                    long location = scratch.locate(mover);
+                    scratch.squares[p] = to;
+                    settleParent(Tablebase.index(location), pass);
+                }
+            }
+        }
+
+        // a move from the parent leads to a position settled at this distance
+        private void settleParent(int parent, int pass) {
+            if (values[parent] != UNRESOLVED) {
+                return;
+            }
+            if (pass % 2 == 0) {
+                scheduled[parent] = (byte) (pass + 1);
+            } else if ((remaining.getAndAdd(parent >>> 2, -(1 << lane(parent))) >>> lane(parent) & 0xFF) == 1
+                    && crossWins[parent] != CANNOT_LOSE) {
+                scheduled[parent] = (byte) (Math.max(pass, crossWins[parent]) + 1);
+            }
+        }
+
+        /**
+         * Settles the passages whose value is known at this distance: a win for the
+         * opponent once the faster of its entry and its captures wins, and a loss once
+         * both lose, at the longer of the two
+         */
+        private void settlePassages(List<Passage> unsettled, int pass) {
+            for (Iterator<Passage> it = unsettled.iterator(); it.hasNext(); ) {
+                Passage passage = it.next();
+                int entry = values[passage.child()];
+                int captures = passage.enPassantValue();
+                int win = Math.min(entry > 0 ? entry : NO_WIN, captures > 0 ? captures : NO_WIN);
+                if (win == pass) {
+                    settleParent(passage.parent(), pass);
+                    it.remove();
+                } else if (entry < 0 && entry != UNRESOLVED && captures < 0
+                        && Math.max(-entry - 1, -captures - 1) == pass) {
+                    settleParent(passage.parent(), pass);
+                    it.remove();
+                }
+            }
+        }
+
+        // the last pass a passage could settle at from its captures alone
+        private static int lastDue(List<Passage> unsettled) {
+            int last = -1;
+            for (Passage passage : unsettled) {
+                int captures = passage.enPassantValue();
+                last = Math.max(last, captures > 0 ? captures : -captures - 1);
+            }
+            return last;
+        }
+
+        /**
+         * @return the stored value of a position in a smaller table, or 0 for bare kings
+         */
+        private int read(long location) {
+            if (Tablebase.piece1(Tablebase.key(location)) < 0) {
+                return 0;
+            }
+            int value = tablebase.read(Tablebase.key(location), Tablebase.index(location));
+            if (value == Tablebase.UNKNOWN) {
+                throw new IllegalStateException("Missing table " + Tablebase.name(Tablebase.key(location)));
+            }
+            return value;
+        }
+
+        // the shift of a position's count in its int; a count never drops below zero, so
+        // adding to it never carries into the next
+        private static int lane(int index) {
+            return (index & 3) * 8;
+        }
+
+        // the squares a piece could have moved to this one from, without capturing
+        private static long origins(int piece, int square, long occupied) {
+            int type = Bitboards.typeOf(piece);
+            long empty = ~occupied;
+            if (type == Tablebase.PAWN) {
+                int color = Bitboards.colorOf(piece);
+                int back = color == 0 ? -8 : 8;
+                int rank = square >>> 3;
+                long origins = 0;
+                int single = square + back;
+                // a pawn never stands on its first rank
+                if ((color == 0 ? rank >= 2 : rank <= 5) && (empty & Bitboards.bit(single)) != 0) {
+                    origins |= Bitboards.bit(single);
+                    if (rank == (color == 0 ? 3 : 4) && (empty & Bitboards.bit(single + back)) != 0) {
+                        origins |= Bitboards.bit(single + back);
+                    }
+                }
+                return origins;
+            }
+            long attacks = switch (ChessPiece.PieceType.values()[type]) {
+                case KING -> Attacks.king(square);
+                case KNIGHT -> Attacks.knight(square);
+                case BISHOP -> Attacks.bishop(square, occupied);
+                case ROOK -> Attacks.rook(square, occupied);
+                case QUEEN -> Attacks.queen(square, occupied);
+                case PAWN -> 0;
+            };
+            return attacks & empty;
+        }
+
+        private void forEachChunk(ExecutorService pool, ChunkTask task) throws IOException {
+            int chunks = threads * 8;
+            List<Future<?>> futures = new ArrayList<>(chunks);
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int start = (int) ((long) size * chunk / chunks);
+                int end = (int) ((long) size * (chunk + 1) / chunks);
+                futures.add(pool.submit(() -> task.run(new Scratch(), start, end)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Tablebase generation interrupted", e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException runtime) {
+                        throw runtime;
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+
+        /**
+         * One thread's view of a position of the table
+         */
+        private final class Scratch {
+            final ChessBoard board = new ChessBoard();
+            final MoveList moves = new MoveList();
+            final MoveList replies = new MoveList();
+            // the white king, the black king, then the other pieces
+            final int[] pieces = new int[Tablebase.MAX_PIECES];
+            final int[] squares = new int[Tablebase.MAX_PIECES];
+            int count;
+            int color;
+            // set by pushAllowsEnPassant: how many replies are not en passant captures,
+            // and the stored value of the best capture for the team making it
+            int otherReplies;
+            int enPassantValue;
+
+            Scratch() {
+                pieces[0] = Bitboards.piece(0, Tablebase.KING);
+                pieces[1] = Bitboards.piece(1, Tablebase.KING);
+                count = 2;
+                if (piece1 >= 0) {
+                    pieces[count++] = piece1;
+                }
+                if (piece2 >= 0) {
+                    pieces[count++] = piece2;
+                }
+            }
+
+            /**
+             * Sets up the position at an index of the table
+             *
+             * @return false if pieces share a square, a pawn is on its last rank or the
+             * index is not the one lookups use for the position
+             */
+            boolean decode(int index) {
+                int rest = index;
+                for (int p = count - 1; p >= 1; p--) {
+                    squares[p] = rest & 63;
+                    rest >>>= 6;
+                }
+                int king = rest & 31;
+                squares[0] = (king >>> 2) * 8 + (king & 3);
+                color = rest >>> 5;
+
+                board.clear();
+                for (int p = 0; p < count; p++) {
+                    int square = squares[p];
+                    if ((board.occupied() & Bitboards.bit(square)) != 0) {
+                        return false;
+                    }
+                    if (Bitboards.typeOf(pieces[p]) == Tablebase.PAWN && (square < 8 || square >= 56)) {
+                        return false;
+                    }
+                    board.addPiece(square, pieces[p]);
+                }
+                // of two like pieces, lookups put the lower square first
+                return count < 4 || pieces[2] != pieces[3] || squares[2] < squares[3];
+            }
+
+            /**
+             * Plays a double push of the team to move, looks at the replies and takes
+             * the push back
+             *
+             * @return whether the opponent can take the pawn en passant
+             */
+            boolean pushAllowsEnPassant(int move) {
+                int from = Move.from(move);
+                int to = Move.to(move);
+                int pawn = board.pieceAt(from);
+                board.removePiece(from, pawn);
+                board.addPiece(to, pawn);
+                boolean allowed = replies(color ^ 1, (from + to) / 2);
+                if (allowed) {
+                    otherReplies = 0;
+                    enPassantValue = Integer.MIN_VALUE;
+                    for (int i = 0; i < replies.size(); i++) {
+                        int reply = replies.get(i);
+                        if (!Move.isEnPassant(reply)) {
+                            otherReplies++;
+                        } else {
+                            int value = captureValue(reply, to);
+                            enPassantValue = enPassantValue == Integer.MIN_VALUE ? value
+                                    : better(enPassantValue, value);
+                        }
+                    }
+                }
+                board.removePiece(to, pawn);
+                board.addPiece(from, pawn);
+                return allowed;
+            }
+
+            /**
+             * @return whether the team to move can capture en passant onto a square
+             */
+            boolean allowsEnPassant(int square) {
+                return replies(color, square);
+            }
+
+            // generates a team's legal moves into replies, and says if one captures en passant
+            private boolean replies(int team, int enPassant) {
+                replies.clear();
+                MoveGenerator.generateAllLegal(board, team, 0, enPassant, replies);
+                for (int i = 0; i < replies.size(); i++) {
+                    if (Move.isEnPassant(replies.get(i))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            // the value for the capturing team of taking the pawn on a square en passant
+            private int captureValue(int capture, int pushed) {
+                int from = Move.from(capture);
+                int to = Move.to(capture);
+                int pawn = board.pieceAt(from);
+                int victim = board.pieceAt(pushed);
+                board.removePiece(from, pawn);
+                board.removePiece(pushed, victim);
+                board.addPiece(to, pawn);
+                int value = read(Tablebase.locate(board, Bitboards.colorOf(victim)));
+                board.removePiece(to, pawn);
+                board.addPiece(pushed, victim);
+                board.addPiece(from, pawn);
+                // one ply further from mate, for the other side
+                return value < 0 ? -value : value > 0 ? -(value + 2) : 0;
+            }
+
+            boolean inCheck() {
+                return board.isSquareAttacked(squares[color], color ^ 1);
+            }
+
+            boolean opponentInCheck() {
+                return board.isSquareAttacked(squares[color ^ 1], color);
+            }
+
+            /**
+             * @return where the position after a move is stored
+             */
+            long child(int move) {
+                int from = Move.from(move);
+                int to = Move.to(move);
+                int piece1 = Bitboards.EMPTY;
+                int square1 = 0;
+                int piece2 = Bitboards.EMPTY;
+                int square2 = 0;
+                int whiteKing = squares[0];
+                int blackKing = squares[1];
+                if (whiteKing == from) {
+                    whiteKing = to;
+                } else if (blackKing == from) {
+                    blackKing = to;
+                }
+                for (int p = 2; p < count; p++) {
+                    int piece = pieces[p];
+                    int square = squares[p];
+                    if (square == to) {
+                        continue;
+                    }
+                    if (square == from) {
+                        square = to;
+                        if (Move.isPromotion(move)) {
+                            piece = Bitboards.piece(Bitboards.colorOf(piece), Move.promotion(move));
+                        }
+                    }
+                    if (piece1 < 0) {
+                        piece1 = piece;
+                        square1 = square;
+                    } else {
+                        piece2 = piece;
+                        square2 = square;
+                    }
+                }
+                return Tablebase.locate(whiteKing, blackKing, piece1, square1, piece2, square2, color ^ 1);
+            }
+
+            /**
+             * @return where the position of the current squares is stored, with the
+             * given team to move
+             */
+            long locate(int toMove) {
+                return Tablebase.locate(squares[0], squares[1],
+                        count > 2 ? pieces[2] : Bitboards.EMPTY, count > 2 ? squares[2] : 0,
+                        count > 3 ? pieces[3] : Bitboards.EMPTY, count > 3 ? squares[3] : 0, toMove);
+            }
+        }
+    }
+
+    /**
+     * A double push from the parent entry to the child entry that the opponent can
+     * answer en passant, with the stored value of its best such capture
+     */
+    private record Passage(int parent, int child, int enPassantValue) {
+    }
+
+    @FunctionalInterface
+    private interface ChunkTask {
+        void run(Build.Scratch scratch, int start, int end);
+    }
+
+    /**
+     * @return the better of two stored values for the side to move: the fastest win,
+     * else a draw, else the slowest loss
+     */
+    private static int better(int a, int b) {
+        if (a > 0 && b > 0) {
+            return Math.min(a, b);
+        }
+        if (a > 0 || b > 0) {
+            return Math.max(a, b);
+        }
+        return a == 0 || b == 0 ? 0 : Math.min(a, b);
+    }
+
+    /**
+     * @return the stored value of a win or loss this many plies from mate
+     */
+    private static byte encode(int plies) {
+        return (byte) (plies % 2 == 1 ? plies : -(plies + 1));
+    }
+
+    /**
+     * Builds tables: the first argument is the directory, the optional second the
+     * thread count, and the rest the endings to build; all of them if none are named
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: TablebaseGenerator <directory> [threads] [ending]...");
+            System.exit(2);
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        List<String> names = args.length > 2 ? List.of(args).subList(2, args.length) : endings();
+        TablebaseGenerator generator = new TablebaseGenerator(Path.of(args[0]), threads);
+        for (String name : names) {
+            long start = System.nanoTime();
+            generator.generate(name);
+            System.out.printf("%-6s %,d ms%n", name, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package chess.engine;
+
+import chess.Move;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of search results keyed by {@link chess.ChessGame#positionKey()},
+ * which may be shared by searches running on several threads without locking.
+ * <p>
+ * Entries are two longs in one {@code long[]}: the key XOR the data, then the data. A
+ * probe only accepts an entry whose two halves XOR back to the key, so an entry torn
+ * by two threads writing at once reads as a miss instead of as another position's
+ * result. Entries are grouped in buckets of four, one 64-byte cache line, and a new
+ * result replaces the entry for the same position or else the least useful one:
+ * shallow entries and entries left over from earlier searches go first.
+ * <p>
+ * The size comes from the constructor, or from the system property {@code chess.hash}
+ * in megabytes, and is rounded down to a power of two.
+ */
+public final class TranspositionTable {
+
+    public static final int DEFAULT_MEGABYTES = Integer.getInteger("chess.hash", 16);
+
+    /**
+     * The score is exact
+     */
+    public static final int EXACT = 1;
+    /**
+     * The score is a lower bound: the search failed high
+     */
+    public static final int LOWER = 2;
+    /**
+     * The score is an upper bound: no move raised alpha
+     */
+    public static final int UPPER = 3;
+
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_LONGS = BUCKET_ENTRIES * 2;
+    private static final int MAX_MEGABYTES = 8192;
+
+    // data layout: move bits 0-19, score + 32768 bits 20-35, depth bits 36-43,
+    // bound bits 44-45, generation bits 46-53. The bound is never 0, so neither is
+    // the data of a stored entry.
+    private static final long MOVE_MASK = (1L << 20) - 1;
+    private static final int SCORE_SHIFT = 20;
+    private static final int DEPTH_SHIFT = 36;
+    private static final int BOUND_SHIFT = 44;
+    private static final int GENERATION_SHIFT = 46;
+    private static final int GENERATIONS = 256;
+
+    private final long[] table;
+    private final long bucketMask;
+    private int generation;
+
+    public TranspositionTable() {
+        this(DEFAULT_MEGABYTES);
+    }
+
+    /**
+     * @param megabytes the size of the table, rounded down to a power of two
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1 || megabytes > MAX_MEGABYTES) {
+            throw new IllegalArgumentException("Table size must be 1 to " + MAX_MEGABYTES + " MB: " + megabytes);
+        }
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / (BUCKET_LONGS * Long.BYTES));
+        table = new long[(int) (buckets * BUCKET_LONGS)];
+        bucketMask = table.length / BUCKET_LONGS - 1;
+    }
+
+    /**
+     * @return the number of entries the table holds
+     */
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    /**
+     * Marks the start of a new search, so entries from earlier searches are replaced
+     * before entries from this one
+     */
+    public void newSearch() {
+        generation = (generation + 1) % GENERATIONS;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        generation = 0;
+    }
+
+    /**
+     * Looks up the entry for a position
+     *
+     * @return the entry's data, read with the static accessors, or 0 on a miss
+     */
+    public long probe(long key) {
+        int bucket = bucket(key);
+        for (int i = bucket; i < bucket + BUCKET_LONGS; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != 0) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Records a search result for a position
+     *
+     * @param move  the best move found, or {@link Move#NONE}
+     * @param score the score at the node, as the search sees it
+     * @param depth the remaining depth searched
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     * @param ply   how far the node is from the root, to store mate scores relative
+     *              to the node
+     */
+    public void store(long key, int move, int score, int depth, int bound, int ply) {
+        int bucket = bucket(key);
+        int target = bucket;
+        int lowest = Integer.MAX_VALUE;
+        for (int i = bucket; i < bucket + BUCKET_LONGS; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key) {
+                // a newer result for the same position replaces the old one, keeping
+                // its move if the new result has none
+                if (move == Move.NONE) {
+                    move = move(data);
+                }
+                target = i;
+                break;
+            }
+            int worth = data == 0 ? Integer.MIN_VALUE : depth(data) - 8 * age(data);
+            if (worth < lowest) {
+                lowest = worth;
+                target = i;
+            }
+        }
+        long data = (move & MOVE_MASK)
+                | ((long) (toStored(score, ply) + 32768) << SCORE_SHIFT)
+                | ((long) Math.min(Math.max(depth, 0), 255) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) generation << GENERATION_SHIFT);
+        table[target] = key ^ data;
+        table[target + 1] = data;
+    }
+
+    /**
+     * @return roughly how full the table is with entries from the current search, in
+     * parts per thousand
+     */
+    public int hashfull() {
+        int sample = Math.min(capacity(), 1000);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = table[i * 2 + 1];
+            if (data != 0 && age(data) == 0) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    private int bucket(long key) {
+        // the low bits pick the bucket; the whole key is verified on probe
+        return (int) (key & bucketMask) * BUCKET_LONGS;
+    }
+
+    private int age(long data) {
+        return (generation - generation(data) + GENERATIONS) % GENERATIONS;
+    }
+
+    public static int move(long data) {
+        return (int) (data & MOVE_MASK);
+    }
+
+    /**
+     * @param ply how far the probing node is from the root
+     * @return the stored score, with mate scores measured from the root again
+     */
+    public static int score(long data, int ply) {
+        int stored = (int) ((data >>> SCORE_SHIFT) & 0xFFFF) - 32768;
+        return fromStored(stored, ply);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> DEPTH_SHIFT) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> BOUND_SHIFT) & 3);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> GENERATION_SHIFT) & 0xFF);
+    }
+
+    // mate scores count plies from the root; stored ones count from the node itself,
+    // so the same position reached at another ply reads the right distance
+    private static int toStored(int score, int ply) {
+        if (score >= Score.MATE - Searcher.MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -Score.MATE + Searcher.MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromStored(int score, int ply) {
+        if (score >= Score.MATE - Searcher.MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -Score.MATE + Searcher.MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+}
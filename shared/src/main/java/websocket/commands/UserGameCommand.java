@@ -20,6 +20,12 @@ public class UserGameCommand {
 
     private ChessMove move;
 
+    private Integer lines;
+
+    private Integer depth;
+
+    private String fen;
+
     public UserGameCommand(CommandType commandType, String authToken, Integer gameID) {
         this.commandType = commandType;
         this.authToken = authToken;
@@ -30,7 +36,9 @@ public class UserGameCommand {
         CONNECT,
         MAKE_MOVE,
         LEAVE,
-        RESIGN
+        RESIGN,
+        ANALYZE,
+        ADD_BOT
     }
 
     public void setMove(ChessMove move) {
@@ -41,6 +49,42 @@ public class UserGameCommand {
         return move;
     }
 
+    /**
+     * @param lines how many of the best moves an ANALYZE command asks for, or null
+     *              for the server's default
+     */
+    public void setLines(Integer lines) {
+        this.lines = lines;
+    }
+
+    public Integer getLines() {
+        return lines;
+    }
+
+    /**
+     * @param depth how deep an ANALYZE command asks the engine to search, or null
+     *              for the server's default
+     */
+    public void setDepth(Integer depth) {
+        this.depth = depth;
+    }
+
+    public Integer getDepth() {
+        return depth;
+    }
+
+    /**
+     * @param fen the position an ANALYZE command asks about, or null for the game's
+     *            current position
+     */
+    public void setFen(String fen) {
+        this.fen = fen;
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
     public CommandType getCommandType() {
         return commandType;
     }
@@ -0,0 +1,27 @@
+package websocket.messages;
+
+import java.util.List;
+
+/**
+ * One update of an engine analysis, sent in an ANALYSIS message each time the search
+ * finishes a depth
+ *
+ * @param depth  the depth searched
+ * @param nodes  the positions visited so far
+ * @param millis the time taken so far
+ * @param done   whether this is the last update of the analysis
+ * @param lines  the best moves found, best first
+ */
+public record Analysis(int depth, long nodes, long millis, boolean done, List<Line> lines) {
+
+    /**
+     * A move and the line the engine expects after it, scored for the team to move
+     *
+     * @param moves      the line in standard algebraic notation, starting with the move
+     * @param centipawns the score in hundredths of a pawn, or 0 if it is a forced mate
+     * @param mateIn     the number of moves to a forced mate, negative if the team to
+     *                   move is mated, or 0 if there is none
+     */
+    public record Line(List<String> moves, int centipawns, int mateIn) {
+    }
+}
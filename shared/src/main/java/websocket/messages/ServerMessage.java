@@ -1,5 +1,6 @@
 package websocket.messages;
 
+import chess.ChessGame;
 import model.GameData;
 
 import java.util.Objects;
@@ -15,11 +16,14 @@ public class ServerMessage {
     private final String message;
     private final String errorMessage;
     private final GameData game;
+    private final ChessGame.GameStatus status;
+    private final Analysis analysis;
 
     public enum ServerMessageType {
         LOAD_GAME,
         ERROR,
-        NOTIFICATION
+        NOTIFICATION,
+        ANALYSIS
     }
 
     public ServerMessage(ServerMessageType type) {
@@ -27,6 +31,8 @@ public class ServerMessage {
         this.message = null;
         this.game = null;
         this.errorMessage = null;
+        this.status = null;
+        this.analysis = null;
     }
 
     public ServerMessage(GameData game) {
@@ -34,6 +40,8 @@ public class ServerMessage {
         this.game = game;
         this.message = null;
         this.errorMessage = null;
+        this.status = game == null || game.game() == null ? null : game.game().getStatus();
+        this.analysis = null;
     }
 
     public ServerMessage(String message) {
@@ -41,6 +49,17 @@ public class ServerMessage {
         this.message = message;
         this.errorMessage = null;
         this.game = null;
+        this.status = null;
+        this.analysis = null;
+    }
+
+    public ServerMessage(Analysis analysis) {
+        this.serverMessageType = ServerMessageType.ANALYSIS;
+        this.analysis = analysis;
+        this.message = null;
+        this.errorMessage = null;
+        this.game = null;
+        this.status = null;
     }
 
     public ServerMessage(ServerMessageType type, String errorMessage) {
@@ -51,6 +70,8 @@ public class ServerMessage {
         this.message = null;
         this.game = null;
         this.errorMessage = errorMessage;
+        this.status = null;
+        this.analysis = null;
     }
 
     public ServerMessageType getServerMessageType() {
@@ -69,6 +90,20 @@ public class ServerMessage {
         return game;
     }
 
+    /**
+     * @return the status of the game in a LOAD_GAME message, or null
+     */
+    public ChessGame.GameStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the engine's lines in an ANALYSIS message, or null
+     */
+    public Analysis getAnalysis() {
+        return analysis;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
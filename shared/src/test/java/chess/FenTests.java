@@ -0,0 +1,112 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FenTests {
+
+    private static final String INITIAL = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    @Test
+    void initialPosition() {
+        ChessGame game = ChessGame.fromFen(INITIAL);
+        assertEquals(new ChessGame(), game);
+        assertEquals(new ChessGame().positionKey(), game.positionKey());
+        assertEquals(INITIAL, new ChessGame().toFen());
+    }
+
+    @Test
+    void suiteRoundTrips() {
+        for (Perft.Position position : Perft.SUITE) {
+            assertEquals(position.fen(), position.game().toFen(), position.name());
+        }
+    }
+
+    @Test
+    void exportsState() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", game.toFen());
+
+        ChessGame loaded = ChessGame.fromFen(game.toFen());
+        assertEquals(Bitboards.square(3, 5), loaded.enPassantSquare());
+        assertEquals(ChessGame.TeamColor.BLACK, loaded.getTeamTurn());
+        assertEquals(game.positionKey(), loaded.positionKey());
+    }
+
+    @Test
+    void countersAreOptional() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K2R w K -");
+        assertEquals(0, game.halfmoveClock());
+        assertEquals(1, game.fullmoveNumber());
+        assertEquals(ChessGame.WHITE_KINGSIDE, game.castlingRights());
+    }
+
+    @Test
+    void dropsRightsWithoutRook() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w KQkq - 12 40");
+        assertEquals(0, game.castlingRights());
+        assertEquals(12, game.halfmoveClock());
+        assertEquals(40, game.fullmoveNumber());
+    }
+
+    @Test
+    void reloadReusesGame() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = game.getBoard();
+        for (Perft.Position position : Perft.SUITE) {
+            game.loadFen(position.fen());
+            assertSame(board, game.getBoard());
+            assertEquals(position.nodes()[0], Perft.perft(game, 1), position.name());
+        }
+    }
+
+    @Test
+    void malformedLeavesGameUnchanged() {
+        String[] malformed = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/ppppxppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkk - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e3 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - x 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra",
+        };
+        ChessGame game = new ChessGame();
+        for (String fen : malformed) {
+            assertThrows(IllegalArgumentException.class, () -> game.loadFen(fen), fen);
+            assertEquals(INITIAL, game.toFen(), fen);
+        }
+    }
+
+    @Test
+    void unreachableLeavesGameUnchanged() {
+        String[] unreachable = {
+                "8/8/8/8/8/8/8/8 w - - 0 1",
+                "4k3/8/8/8/8/8/8/K3K3 w - - 0 1",
+                "8/8/8/8/8/8/8/4K3 w - - 0 1",
+                "4k3/8/8/8/8/8/8/4R1K1 w - - 0 1",
+                "4k3/8/8/3P4/8/8/8/4K3 w - e6 0 1",
+                "4k3/4p3/8/3Pp3/8/8/8/4K3 w - e6 0 1",
+        };
+        ChessGame game = new ChessGame();
+        for (String fen : unreachable) {
+            assertThrows(IllegalArgumentException.class, () -> game.loadFen(fen), fen);
+            assertEquals(INITIAL, game.toFen(), fen);
+        }
+    }
+
+    @Test
+    void acceptsEnPassantAfterDoublePush() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3Pp3/8/8/8/4K3 w - e6 0 1");
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        assertTrue(Move.toChessMoves(moves).contains(
+                ChessMove.of(ChessPosition.of(5, 4), ChessPosition.of(6, 5), null)));
+    }
+}
@@ -0,0 +1,138 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import model.GameData;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameCodecTests {
+
+    // a game after 1. e4 as the first version stored it, its board a grid of pieces
+    private static final String GRID_AFTER_E4 = "{\"board\":{\"board\":["
+            + "[{\"type\":\"ROOK\",\"pieceColor\":\"WHITE\"},{\"type\":\"KNIGHT\",\"pieceColor\":\"WHITE\"},{\"type\":\"BISHOP\",\"pieceColor\":\"WHITE\"},{\"type\":\"QUEEN\",\"pieceColor\":\"WHITE\"},{\"type\":\"KING\",\"pieceColor\":\"WHITE\"},{\"type\":\"BISHOP\",\"pieceColor\":\"WHITE\"},{\"type\":\"KNIGHT\",\"pieceColor\":\"WHITE\"},{\"type\":\"ROOK\",\"pieceColor\":\"WHITE\"}],"
+            + "[{\"type\":\"PAWN\",\"pieceColor\":\"WHITE\"},{\"type\":\"PAWN\",\"pieceColor\":\"WHITE\"},{\"type\":\"PAWN\",\"pieceColor\":\"WHITE\"},{\"type\":\"PAWN\",\"pieceColor\":\"WHITE\"},null,{\"type\":\"PAWN\",\"pieceColor\":\"WHITE\"},{\"type\":\"PAWN\",\"pieceColor\":\"WHITE\"},{\"type\":\"PAWN\",\"pieceColor\":\"WHITE\"}],"
+            + "[null,null,null,null,null,null,null,null],"
+            + "[null,null,null,null,{\"type\":\"PAWN\",\"pieceColor\":\"WHITE\"},null,null,null],"
+            + "[null,null,null,null,null,null,null,null],"
+            + "[null,null,null,null,null,null,null,null],"
+            + "[{\"type\":\"PAWN\",\"pieceColor\":\"BLACK\"},{\"type\":\"PAWN\",\"pieceColor\":\"BLACK\"},{\"type\":\"PAWN\",\"pieceColor\":\"BLACK\"},{\"type\":\"PAWN\",\"pieceColor\":\"BLACK\"},{\"type\":\"PAWN\",\"pieceColor\":\"BLACK\"},{\"type\":\"PAWN\",\"pieceColor\":\"BLACK\"},{\"type\":\"PAWN\",\"pieceColor\":\"BLACK\"},{\"type\":\"PAWN\",\"pieceColor\":\"BLACK\"}],"
+            + "[{\"type\":\"ROOK\",\"pieceColor\":\"BLACK\"},{\"type\":\"KNIGHT\",\"pieceColor\":\"BLACK\"},{\"type\":\"BISHOP\",\"pieceColor\":\"BLACK\"},{\"type\":\"QUEEN\",\"pieceColor\":\"BLACK\"},{\"type\":\"KING\",\"pieceColor\":\"BLACK\"},{\"type\":\"BISHOP\",\"pieceColor\":\"BLACK\"},{\"type\":\"KNIGHT\",\"pieceColor\":\"BLACK\"},{\"type\":\"ROOK\",\"pieceColor\":\"BLACK\"}]"
+            + "]},\"teamTurn\":\"BLACK\"}";
+
+    private static void assertRoundTrip(ChessGame game, ChessGame decoded) {
+        assertEquals(game, decoded);
+        assertEquals(game.positionKey(), decoded.positionKey());
+        assertEquals(game.toFen(), decoded.toFen());
+        assertEquals(game.repetitionCount(), decoded.repetitionCount());
+    }
+
+    @Test
+    void positionIsFixedSize() {
+        ChessGame game = new ChessGame();
+        byte[] bytes = GameCodec.encode(game);
+        assertEquals(GameCodec.POSITION_BYTES + 1, bytes.length);
+        assertRoundTrip(game, GameCodec.decode(bytes));
+    }
+
+    @Test
+    void suiteRoundTrips() {
+        for (Perft.Position position : Perft.SUITE) {
+            ChessGame game = position.game();
+            assertRoundTrip(game, GameCodec.decode(GameCodec.encode(game)));
+        }
+    }
+
+    @Test
+    void randomGamesRoundTrip() {
+        Random random = new Random(240);
+        MoveList moves = new MoveList();
+        byte[] buffer = new byte[GameCodec.POSITION_BYTES + 1 + 255 * Long.BYTES + 16];
+        for (int playout = 0; playout < 50; playout++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 120; ply++) {
+                moves.clear();
+                game.legalMoves(moves);
+                if (moves.size() == 0) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+                int end = GameCodec.encode(game, buffer, 16);
+                assertEquals(GameCodec.encodedSize(game), end - 16);
+                assertRoundTrip(game, GameCodec.decode(buffer, 16, end - 16));
+            }
+        }
+    }
+
+    @Test
+    void repetitionsSurviveRoundTrip() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String move : new String[]{"g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1"}) {
+            ChessPosition start = ChessPosition.of(move.charAt(1) - '0', move.charAt(0) - 'a' + 1);
+            ChessPosition end = ChessPosition.of(move.charAt(3) - '0', move.charAt(2) - 'a' + 1);
+            game.makeMove(ChessMove.of(start, end, null));
+        }
+        ChessGame decoded = GameCodec.decode(GameCodec.encode(game));
+        decoded.makeMove(ChessMove.of(ChessPosition.of(6, 6), ChessPosition.of(8, 7), null));
+        assertTrue(decoded.isThreefoldRepetition());
+    }
+
+    @Test
+    void rejectsBadEncodings() {
+        byte[] good = GameCodec.encode(new ChessGame());
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(new byte[10]));
+
+        byte[] version = good.clone();
+        version[0] = (byte) 0x20;
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(version));
+
+        byte[] piece = good.clone();
+        piece[20] = (byte) 0xFF;
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(piece));
+
+        byte[] keys = good.clone();
+        keys[GameCodec.POSITION_BYTES] = 3;
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(keys));
+    }
+
+    @Test
+    void gsonUsesEncoding() {
+        Gson gson = new Gson();
+        GameData data = new GameData(1, "white", "black", "game", Perft.SUITE.get(1).game());
+        String json = gson.toJson(data);
+        assertTrue(json.length() < 150, json);
+
+        GameData read = gson.fromJson(json, GameData.class);
+        assertRoundTrip(data.game(), read.game());
+        assertNull(gson.fromJson(gson.toJson(new GameData(2, null, null, "over", null)), GameData.class).game());
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"game\":\"!!\"}", GameData.class));
+    }
+
+    @Test
+    void gsonRejectsOtherObjects() {
+        Gson gson = new Gson();
+        String fields = "{\"board\":{\"pieceSets\":[0,0,0,0,0,0,0,0,0,0,0,0],\"teamSets\":[0,0],\"key\":1},"
+                + "\"teamTurn\":\"BLACK\",\"state\":524303,\"history\":[],\"historySize\":0}";
+        assertThrows(JsonParseException.class, () -> gson.fromJson(fields, ChessGame.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{}", ChessGame.class));
+    }
+
+    @Test
+    void gsonReadsPieceGrids() {
+        Gson gson = new Gson();
+        ChessGame game = gson.fromJson(GRID_AFTER_E4, ChessGame.class);
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", game.toFen());
+        assertEquals(ChessGame.fromFen(game.toFen()).positionKey(), game.positionKey());
+
+        GameData stored = gson.fromJson("{\"gameID\":1,\"gameName\":\"old\",\"game\":" + GRID_AFTER_E4 + "}",
+                GameData.class);
+        assertEquals(game, stored.game());
+        assertThrows(JsonParseException.class, () -> gson.fromJson(
+                GRID_AFTER_E4.replace("\"QUEEN\"", "\"DRAGON\""), ChessGame.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson(
+                "{\"board\":{\"board\":[[]]},\"teamTurn\":\"WHITE\"}", ChessGame.class));
+    }
+}
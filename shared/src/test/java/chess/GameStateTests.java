@@ -0,0 +1,192 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameStateTests {
+
+    private static void play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String move : moves) {
+            ChessPosition start = ChessPosition.of(move.charAt(1) - '0', move.charAt(0) - 'a' + 1);
+            ChessPosition end = ChessPosition.of(move.charAt(3) - '0', move.charAt(2) - 'a' + 1);
+            game.makeMove(ChessMove.of(start, end, null));
+        }
+    }
+
+    @Test
+    void newGameState() {
+        ChessGame game = new ChessGame();
+        assertEquals(ChessGame.WHITE_KINGSIDE | ChessGame.WHITE_QUEENSIDE
+                | ChessGame.BLACK_KINGSIDE | ChessGame.BLACK_QUEENSIDE, game.castlingRights());
+        assertEquals(-1, game.enPassantSquare());
+        assertEquals(0, game.halfmoveClock());
+        assertEquals(1, game.fullmoveNumber());
+    }
+
+    @Test
+    void countersAndEnPassantSquare() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "e2e4");
+        assertEquals(Bitboards.square(3, 5), game.enPassantSquare());
+        assertEquals(1, game.fullmoveNumber());
+
+        play(game, "g8f6", "b1c3");
+        assertEquals(-1, game.enPassantSquare());
+        assertEquals(2, game.halfmoveClock());
+        assertEquals(2, game.fullmoveNumber());
+
+        play(game, "f6e4");
+        assertEquals(0, game.halfmoveClock());
+        assertEquals(3, game.fullmoveNumber());
+    }
+
+    @Test
+    void movingKingOrRookLosesRights() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "b8c6", "h1g1");
+        assertEquals(ChessGame.WHITE_QUEENSIDE | ChessGame.BLACK_KINGSIDE | ChessGame.BLACK_QUEENSIDE,
+                game.castlingRights());
+        play(game, "e7e6", "e2e3", "e8e7");
+        assertEquals(ChessGame.WHITE_QUEENSIDE, game.castlingRights());
+    }
+
+    @Test
+    void unmakeRestoresState() throws InvalidMoveException {
+        ChessGame game = Perft.SUITE.get(1).game();
+        long key = game.positionKey();
+        play(game, "e1g1");
+        assertEquals(ChessGame.BLACK_KINGSIDE | ChessGame.BLACK_QUEENSIDE, game.castlingRights());
+        game.unmakeMove();
+        assertEquals(key, game.positionKey());
+        assertEquals(ChessGame.WHITE_KINGSIDE | ChessGame.WHITE_QUEENSIDE
+                | ChessGame.BLACK_KINGSIDE | ChessGame.BLACK_QUEENSIDE, game.castlingRights());
+    }
+
+    @Test
+    void castlingRightsPartOfPosition() throws InvalidMoveException {
+        ChessGame moved = new ChessGame();
+        play(moved, "g1f3", "g8f6", "h1g1", "h8g8", "g1h1", "g8h8");
+        ChessGame fresh = new ChessGame();
+        play(fresh, "g1f3", "g8f6");
+        assertEquals(fresh.getBoard(), moved.getBoard());
+        assertNotEquals(fresh, moved);
+        assertNotEquals(fresh.positionKey(), moved.positionKey());
+    }
+
+    @Test
+    void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        assertEquals(2, game.repetitionCount());
+        assertFalse(game.isDraw());
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        assertEquals(3, game.repetitionCount());
+        assertTrue(game.isThreefoldRepetition());
+        assertTrue(game.isDraw());
+
+        game.unmakeMove();
+        assertFalse(game.isThreefoldRepetition());
+    }
+
+    @Test
+    void repetitionNeedsSameRights() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "g8f6", "h1g1", "h8g8", "g1h1", "g8h8");
+        play(game, "h1g1", "h8g8", "g1h1", "g8h8");
+        assertEquals(2, game.repetitionCount());
+    }
+
+    @Test
+    void pawnMoveResetsRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8", "e2e3");
+        play(game, "g8f6", "g1f3", "f6g8", "f3g1");
+        assertEquals(2, game.repetitionCount());
+    }
+
+    @Test
+    void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+        String[] rookSquares = {"a1", "a2", "a3", "a4", "a5", "a6", "a7"};
+        for (int i = 0; i < 50; i++) {
+            play(game, rookSquares[i % 7] + rookSquares[(i + 1) % 7]);
+            assertFalse(game.isFiftyMoveDraw());
+            play(game, i % 2 == 0 ? "e8d8" : "d8e8");
+        }
+        assertEquals(100, game.halfmoveClock());
+        assertTrue(game.isFiftyMoveDraw());
+        assertTrue(game.isDraw());
+    }
+
+    @Test
+    void historySurvivesSerialization() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1");
+        Gson gson = new Gson();
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+        play(copy, "f6g8");
+        assertTrue(copy.isThreefoldRepetition());
+    }
+
+    @Test
+    void statusFollowsMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+        play(game, "e2e4", "f7f5", "d1h5");
+        assertEquals(ChessGame.GameStatus.CHECK, game.getStatus());
+        assertTrue(game.isInCheck(ChessGame.TeamColor.BLACK));
+
+        game.unmakeMove();
+        assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+    }
+
+    @Test
+    void checkmateStatus() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "e2e4", "e7e5", "f1c4", "b8c6", "d1h5", "g8f6", "h5f7");
+        assertEquals(ChessGame.GameStatus.CHECKMATE, game.getStatus());
+        assertTrue(game.getStatus().isGameOver());
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+        assertFalse(game.isInStalemate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void drawStatus() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1", "f6g8");
+        assertEquals(ChessGame.GameStatus.DRAW, game.getStatus());
+        assertTrue(game.getStatus().isGameOver());
+    }
+
+    @Test
+    void rejectsPositionsOffTheBoard() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = game.getBoard();
+        String fen = game.toFen();
+        assertThrows(IllegalArgumentException.class, () -> board.getPiece(new ChessPosition(1, 9)));
+        assertThrows(IllegalArgumentException.class, () -> board.addPiece(new ChessPosition(0, 5),
+                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN)));
+        assertThrows(IllegalArgumentException.class, () -> game.validMoves(new ChessPosition(1, 9)));
+        assertThrows(InvalidMoveException.class, () -> game.makeMove(
+                new ChessMove(new ChessPosition(1, 9), new ChessPosition(3, 1), null)));
+        assertEquals(fen, game.toFen());
+    }
+
+    @Test
+    void irreversibleMoveDropsUndoRecords() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        assertEquals(4, game.undoDepth());
+        play(game, "e2e4");
+        assertEquals(0, game.undoDepth());
+        assertThrows(IllegalStateException.class, game::unmakeMove);
+
+        play(game, "g8f6", "g1f3", "f6g8", "f3g1");
+        assertEquals(2, game.repetitionCount());
+        ChessGame copy = new ChessGame(game);
+        assertEquals(4, copy.repetitionWindow());
+        assertEquals(2, copy.repetitionCount());
+    }
+}
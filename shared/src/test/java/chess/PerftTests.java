@@ -0,0 +1,44 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTests {
+
+    @Test
+    void suiteNodeCounts() {
+        for (Perft.Position position : Perft.SUITE) {
+            for (int depth = 1; depth <= position.nodes().length; depth++) {
+                assertEquals(position.nodes()[depth - 1], Perft.perft(position.game(), depth),
+                        position.name() + " depth " + depth);
+            }
+        }
+    }
+
+    @Test
+    void divideSumsToPerft() {
+        ChessGame game = new ChessGame();
+        Map<String, Long> divide = Perft.divide(game, 3);
+        assertEquals(20, divide.size());
+        assertEquals(8902L, divide.values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(Long.valueOf(600), divide.get("e2e4"));
+    }
+
+    @Test
+    void parallelMatchesSingleThreaded() {
+        Perft.Position position = Perft.SUITE.get(2);
+        assertEquals(position.nodes()[2], Perft.perft(position.game(), 3, 4));
+    }
+
+    @Test
+    void perftLeavesGameUnchanged() {
+        ChessGame game = Perft.SUITE.get(1).game();
+        long key = game.positionKey();
+        Perft.perft(game, 3);
+        assertEquals(key, game.positionKey());
+        assertEquals(0, game.undoDepth());
+    }
+}
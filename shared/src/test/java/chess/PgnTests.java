@@ -0,0 +1,81 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PgnTests {
+
+    private static final String GAMES = """
+            [Event "Casual"]
+            [White "Morphy, Paul"]
+            [Black "Duke of Brunswick and Count Isouard"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 d6 3. d4 Bg4 {This is a weak move} 4. dxe5 Bxf3 5. Qxf3 dxe5
+            6. Bc4 Nf6 7. Qb3 Qe7 8. Nc3 c6 9. Bg5 b5 10. Nxb5 cxb5 11. Bxb5+ Nbd7
+            12. O-O-O Rd8 13. Rxd7 Rxd7 14. Rd1 Qe6 15. Bxd7+ Nxd7 16. Qb8+ Nxb8 17. Rd8# 1-0
+
+            [Event "Test"]
+            [FEN "4k3/P7/8/8/8/8/8/4K3 w - - 0 1"]
+
+            1. a8=Q+ (1. a8R+ $2 Kd7) 1... Kd7 2.Qb7+ ; a line comment
+            Ke6 *
+            """;
+
+    @Test
+    void readsGames() throws IOException {
+        PgnReader reader = new PgnReader(new StringReader(GAMES));
+        PgnReader.Game first = reader.next();
+        assertEquals("Morphy, Paul", first.tags().get("White"));
+        assertEquals("1-0", first.result());
+        assertEquals(33, first.moves().size());
+        assertEquals("Rd8#", first.moves().get(32));
+
+        PgnReader.Game second = reader.next();
+        assertEquals(List.of("a8=Q+", "Kd7", "Qb7+", "Ke6"), second.moves());
+        assertEquals("*", second.result());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void playsGamesThroughSan() throws IOException {
+        PgnReader reader = new PgnReader(new StringReader(GAMES));
+        for (PgnReader.Game pgn; (pgn = reader.next()) != null; ) {
+            ChessGame game = pgn.startingPosition();
+            for (String san : pgn.moves()) {
+                int move = San.parse(game, san);
+                assertEquals(san, San.toString(game, move));
+                game.makeMove(move);
+            }
+        }
+    }
+
+    @Test
+    void parsesLooseSan() {
+        ChessGame game = new ChessGame();
+        assertEquals("g1f3", Move.toString(San.parse(game, "Nf3!?")));
+        assertEquals("g1f3", Move.toString(San.parse(game, "Ngf3")));
+        ChessGame castling = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        assertEquals("e1g1", Move.toString(San.parse(castling, "0-0")));
+        assertEquals("e1c1", Move.toString(San.parse(castling, "O-O-O+")));
+        ChessGame promotion = ChessGame.fromFen("1n2k3/P7/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals("a7b8n", Move.toString(San.parse(promotion, "axb8N")));
+    }
+
+    @Test
+    void disambiguates() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/R6R/8/8/R3K3 w - - 0 1");
+        assertEquals("Rhd4", San.toString(game, San.parse(game, "Rhd4")));
+        assertEquals("R1a2", San.toString(game, San.parse(game, "R1a2")));
+        assertEquals("Rab4", San.toString(game, San.parse(game, "Ra4b4")));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "Rd4"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "Ra3"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "Ke9"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "Nf3"));
+    }
+}
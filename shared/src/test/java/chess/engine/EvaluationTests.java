@@ -0,0 +1,103 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.MoveList;
+import chess.Perft;
+import chess.PieceSquareTables;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationTests {
+
+    @Test
+    void startingPositionIsLevel() {
+        ChessGame game = new ChessGame();
+        assertEquals(0, Evaluation.evaluate(game));
+        assertEquals(PieceSquareTables.MAX_PHASE, game.getBoard().phase());
+    }
+
+    @Test
+    void mirroredPositionsScoreTheSame() {
+        for (Perft.Position position : Perft.SUITE) {
+            ChessGame game = position.game();
+            ChessGame mirrored = ChessGame.fromFen(mirror(game.toFen()));
+            assertEquals(Evaluation.evaluate(game), Evaluation.evaluate(mirrored), position.name());
+        }
+    }
+
+    @Test
+    void extraMaterialWins() {
+        assertTrue(Evaluation.evaluate(ChessGame.fromFen("4k3/8/8/8/8/8/8/3QK3 w - - 0 1")) > 800);
+        assertTrue(Evaluation.evaluate(ChessGame.fromFen("4k3/8/8/8/8/8/8/3QK3 b - - 0 1")) < -800);
+        assertEquals(4, ChessGame.fromFen("4k3/8/8/8/8/8/8/3QK3 w - - 0 1").getBoard().phase());
+    }
+
+    @Test
+    void incrementalScoreMatchesRebuiltBoard() {
+        SplittableRandom random = new SplittableRandom(7);
+        MoveList moves = new MoveList();
+        for (Perft.Position position : Perft.SUITE) {
+            ChessGame game = position.game();
+            int played = 0;
+            for (int i = 0; i < 200; i++) {
+                game.legalMoves(moves);
+                if (moves.isEmpty() || game.halfmoveClock() >= 100) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+                played++;
+                assertMatchesRebuilt(game, position.name());
+            }
+            for (; played > 0; played--) {
+                game.unmakeMove();
+            }
+            assertMatchesRebuilt(game, position.name());
+        }
+    }
+
+    private static void assertMatchesRebuilt(ChessGame game, String name) {
+        ChessBoard board = game.getBoard();
+        ChessBoard rebuilt = ChessGame.fromFen(game.toFen()).getBoard();
+        assertEquals(rebuilt.psqtScore(), board.psqtScore(), name + " " + game.toFen());
+        assertEquals(rebuilt.phase(), board.phase(), name + " " + game.toFen());
+    }
+
+    private static String mirror(String fen) {
+        String[] fields = fen.split(" ");
+        String[] ranks = fields[0].split("/");
+        StringBuilder out = new StringBuilder();
+        for (int i = ranks.length - 1; i >= 0; i--) {
+            out.append(swapCase(ranks[i])).append(i > 0 ? "/" : " ");
+        }
+        out.append(fields[1].equals("w") ? "b" : "w").append(' ');
+        if (fields[2].equals("-")) {
+            out.append('-');
+        } else {
+            String castling = swapCase(fields[2]);
+            for (char right : "KQkq".toCharArray()) {
+                if (castling.indexOf(right) >= 0) {
+                    out.append(right);
+                }
+            }
+        }
+        out.append(' ');
+        if (fields[3].equals("-")) {
+            out.append('-');
+        } else {
+            out.append(fields[3].charAt(0)).append(fields[3].charAt(1) == '3' ? '6' : '3');
+        }
+        return out.append(" 0 1").toString();
+    }
+
+    private static String swapCase(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            out.append(Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Move;
+import chess.MoveList;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveOrderingTests {
+
+    private static int find(ChessGame game, String uci) {
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (Move.toString(moves.get(i)).equals(uci)) {
+                return moves.get(i);
+            }
+        }
+        throw new AssertionError("no move " + uci + " in " + game.toFen());
+    }
+
+    private static int exchange(String fen, String uci) {
+        ChessGame game = ChessGame.fromFen(fen);
+        return new MoveOrdering().staticExchange(game.getBoard(), find(game, uci));
+    }
+
+    @Test
+    void staticExchangeOfUndefendedPiece() {
+        assertEquals(100, exchange("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1e5"));
+    }
+
+    @Test
+    void staticExchangeWithDefenders() {
+        // rook takes a pawn defended by a pawn
+        assertEquals(100 - 500, exchange("4k3/8/3p4/4p3/8/8/8/K3R3 w - - 0 1", "e1e5"));
+        // knight takes a defended pawn, with x-ray attackers behind on both sides: knight for pawn
+        assertEquals(100 - 320, exchange("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3e5"));
+        // pawn takes a pawn; recapturing with the knight would lose it to the other pawn
+        assertEquals(100, exchange("4k3/3n4/8/4p3/3P1P2/8/8/4K3 w - - 0 1", "d4e5"));
+    }
+
+    @Test
+    void staticExchangeOfEnPassantAndPromotion() {
+        assertEquals(100, exchange("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6"));
+        assertEquals(900 - 100 + 500, exchange("1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7b8q"));
+    }
+
+    @Test
+    void ordersHashMoveCapturesKillersAndHistory() {
+        ChessGame game = ChessGame.fromFen("4k3/8/3p4/4p1q1/8/5N2/8/K3R3 w - - 0 1");
+        MoveOrdering ordering = new MoveOrdering();
+        int hashMove = find(game, "a1b1");
+        int killer = find(game, "e1e2");
+        int historyMove = find(game, "f3h4");
+        ordering.cutoff(0, killer, 3, 4);
+        ordering.cutoff(0, historyMove, 5, 6);
+
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        ordering.order(game, moves, 3, hashMove);
+        assertEquals("a1b1", Move.toString(moves.get(0)));
+        assertEquals("f3g5", Move.toString(moves.get(1)));
+        assertEquals("e1e2", Move.toString(moves.get(2)));
+        assertEquals("f3h4", Move.toString(moves.get(3)));
+        int last = moves.size() - 1;
+        assertTrue(ordering.isBadCapture(3, last));
+        assertEquals(Move.CAPTURE, moves.get(last) & Move.CAPTURE);
+        assertFalse(ordering.isBadCapture(3, 1));
+    }
+
+    @Test
+    void capturesDoNotBecomeKillers() {
+        ChessGame game = ChessGame.fromFen("4k3/8/3p4/4p1q1/8/5N2/8/K3R3 w - - 0 1");
+        MoveOrdering ordering = new MoveOrdering();
+        ordering.cutoff(0, find(game, "e1e5"), 0, 4);
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        ordering.order(game, moves, 0, Move.NONE);
+        assertEquals("f3g5", Move.toString(moves.get(0)));
+        assertEquals("e1e5", Move.toString(moves.get(moves.size() - 1)));
+    }
+}
@@ -0,0 +1,108 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Move;
+import chess.San;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTests {
+
+    private static final String GAMES = """
+            [Result "1-0"]
+            1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 1-0
+
+            [Result "1/2-1/2"]
+            1. e4 c5 2. Nf3 d6 1/2-1/2
+
+            [Result "0-1"]
+            1. d4 Nf6 2. c4 e6 0-1
+
+            [Result "1-0"]
+            1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. O-O Nf6 1-0
+            """;
+
+    private static OpeningBook build(int plies) throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+        assertEquals(4, builder.addPgn(new StringReader(GAMES)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        builder.write(out);
+        return OpeningBook.of(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    private static ChessGame play(String... moves) {
+        ChessGame game = new ChessGame();
+        for (String san : moves) {
+            game.makeMove(San.parse(game, san));
+        }
+        return game;
+    }
+
+    @Test
+    void choosesMostSuccessfulMove() throws IOException {
+        OpeningBook book = build(OpeningBookBuilder.DEFAULT_PLIES);
+        // e4 scored 2 + 1 + 2 and d4 nothing, since white lost; black only drew after
+        // c5 and lost both games after e5
+        assertEquals("e2e4", Move.toString(book.bestMove(new ChessGame())));
+        assertEquals("c7c5", Move.toString(book.bestMove(play("e4"))));
+        assertEquals("g8f6", Move.toString(book.bestMove(play("d4"))));
+        assertEquals(Move.NONE, book.bestMove(play("a3")));
+        assertFalse(book.contains(play("e4", "e5", "Nf3", "Nc6", "Bb5", "a6")));
+    }
+
+    @Test
+    void castlingRoundTrips() throws IOException {
+        OpeningBook book = build(OpeningBookBuilder.DEFAULT_PLIES);
+        int move = book.bestMove(play("e4", "e5", "Nf3", "Nc6", "Bc4", "Bc5"));
+        assertTrue(Move.isCastle(move));
+        assertEquals("e1g1", Move.toString(move));
+    }
+
+    @Test
+    void limitsPlies() throws IOException {
+        OpeningBook book = build(2);
+        assertTrue(book.contains(play("e4")));
+        assertFalse(book.contains(play("e4", "e5")));
+    }
+
+    @Test
+    void picksInProportionToWeight() throws IOException {
+        OpeningBook book = build(OpeningBookBuilder.DEFAULT_PLIES);
+        SplittableRandom random = new SplittableRandom(1);
+        ChessGame afterNc6 = play("e4", "e5", "Nf3", "Nc6");
+        int bishopB5 = 0;
+        for (int i = 0; i < 1000; i++) {
+            String move = Move.toString(book.pickMove(afterNc6, random));
+            assertTrue(move.equals("f1b5") || move.equals("f1c4"), move);
+            bishopB5 += move.equals("f1b5") ? 1 : 0;
+        }
+        assertTrue(bishopB5 > 400 && bishopB5 < 600, "Bb5 " + bishopB5);
+    }
+
+    @Test
+    void mapsBookFile() throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        builder.addPgn(new StringReader(GAMES));
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            builder.write(file);
+            OpeningBook book = OpeningBook.open(file);
+            assertEquals(Files.size(file) / OpeningBook.ENTRY_BYTES, book.size());
+            assertEquals("e2e4", Move.toString(book.bestMove(new ChessGame())));
+
+            Files.write(file, new byte[OpeningBook.ENTRY_BYTES + 1]);
+            assertThrows(IOException.class, () -> OpeningBook.open(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
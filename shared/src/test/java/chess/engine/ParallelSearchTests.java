@@ -0,0 +1,61 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Move;
+import chess.Perft;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelSearchTests {
+
+    @Test
+    void findsMateWithHelpers() {
+        try (ParallelSearcher searcher = new ParallelSearcher(4, new TranspositionTable(4))) {
+            SearchResult result = searcher.search(ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"),
+                    SearchLimits.depth(4));
+            assertEquals("a1a8", Move.toString(result.move()));
+            assertEquals(1, Score.mateIn(result.score()));
+        }
+    }
+
+    @Test
+    void agreesWithSingleThread() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        try (ParallelSearcher searcher = new ParallelSearcher(3, new TranspositionTable(4))) {
+            SearchResult result = searcher.search(game, SearchLimits.depth(4));
+            assertEquals("d2d5", Move.toString(result.move()));
+            assertEquals(result.move(), result.pv()[0]);
+        }
+    }
+
+    @Test
+    void leavesGameUnchanged() {
+        ChessGame game = Perft.SUITE.get(1).game();
+        String fen = game.toFen();
+        try (ParallelSearcher searcher = new ParallelSearcher(4, new TranspositionTable(4))) {
+            searcher.search(game, SearchLimits.depth(4));
+            searcher.search(game, SearchLimits.time(50));
+        }
+        assertEquals(fen, game.toFen());
+        assertEquals(0, game.undoDepth());
+    }
+
+    @Test
+    void countsNodesOfAllThreads() {
+        ChessGame game = Perft.SUITE.get(1).game();
+        try (ParallelSearcher one = new ParallelSearcher(1, new TranspositionTable(4));
+             ParallelSearcher four = new ParallelSearcher(4, new TranspositionTable(4))) {
+            SearchResult single = one.search(game, SearchLimits.nodes(20_000));
+            SearchResult parallel = four.search(game, SearchLimits.nodes(20_000));
+            assertTrue(single.nodes() <= 20_000, "searched " + single.nodes());
+            assertTrue(parallel.nodes() > single.nodes(), single.nodes() + " vs " + parallel.nodes());
+            assertNotEquals(Move.NONE, parallel.move());
+        }
+    }
+
+    @Test
+    void rejectsNoThreads() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelSearcher(0));
+    }
+}
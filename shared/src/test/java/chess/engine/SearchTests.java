@@ -0,0 +1,151 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Move;
+import chess.Perft;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTests {
+
+    private static SearchResult search(String fen, SearchLimits limits) {
+        return new Searcher().search(ChessGame.fromFen(fen), limits);
+    }
+
+    @Test
+    void findsMateInOne() {
+        SearchResult result = search("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", SearchLimits.depth(4));
+        assertEquals("a1a8", Move.toString(result.move()));
+        assertEquals(1, Score.mateIn(result.score()));
+    }
+
+    @Test
+    void findsMateInTwo() {
+        SearchResult result = search("4k3/8/8/8/8/8/1R6/R3K3 w - - 0 1", SearchLimits.depth(5));
+        assertEquals(2, Score.mateIn(result.score()));
+        assertEquals(3, result.pv().length, result.pvString());
+    }
+
+    @Test
+    void winsHangingQueen() {
+        SearchResult result = search("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1", SearchLimits.depth(3));
+        assertEquals("d2d5", Move.toString(result.move()));
+        assertTrue(result.score() > 300);
+    }
+
+    @Test
+    void quiescenceSeesRecapture() {
+        SearchResult result = search("4k3/8/2p5/3p4/8/8/3Q4/4K3 w - - 0 1", SearchLimits.depth(1));
+        assertNotEquals("d2d5", Move.toString(result.move()));
+    }
+
+    @Test
+    void noMoveWhenGameIsOver() {
+        SearchResult mated = search("r1bqkb1r/pppp1Qpp/2n2n2/4p3/2B1P3/8/PPPP1PPP/RNB1K1NR b KQkq - 0 4",
+                SearchLimits.depth(3));
+        assertEquals(Move.NONE, mated.move());
+        assertNull(mated.bestMove());
+        assertEquals(-Score.MATE, mated.score());
+
+        SearchResult stalemate = search("k7/8/1Q6/8/8/8/8/7K b - - 0 1", SearchLimits.depth(3));
+        assertEquals(Move.NONE, stalemate.move());
+        assertEquals(Score.DRAW, stalemate.score());
+    }
+
+    @Test
+    void leavesGameUnchanged() {
+        ChessGame game = Perft.SUITE.get(1).game();
+        String fen = game.toFen();
+        long key = game.positionKey();
+        new Searcher().search(game, SearchLimits.depth(3));
+        assertEquals(fen, game.toFen());
+        assertEquals(key, game.positionKey());
+        assertEquals(0, game.undoDepth());
+    }
+
+    @Test
+    void honoursNodeLimit() {
+        SearchResult result = new Searcher().search(Perft.SUITE.get(1).game(), SearchLimits.nodes(20_000));
+        assertTrue(result.depth() >= 1);
+        assertTrue(result.nodes() <= 20_000, "searched " + result.nodes());
+        assertNotEquals(Move.NONE, result.move());
+    }
+
+    @Test
+    void honoursTimeLimit() {
+        SearchResult result = new Searcher().search(new ChessGame(), SearchLimits.time(50));
+        assertTrue(result.millis() < 1000, "took " + result.millis() + " ms");
+        assertNotEquals(Move.NONE, result.move());
+        assertEquals(result.move(), result.pv()[0]);
+    }
+
+    @Test
+    void analyzesSeveralLines() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        List<List<SearchResult>> updates = new ArrayList<>();
+        List<SearchResult> lines = new Searcher().analyze(game, SearchLimits.depth(4), 3, updates::add);
+        assertEquals(3, lines.size());
+        assertEquals("d2d5", Move.toString(lines.get(0).move()));
+        assertEquals(3, new HashSet<>(lines.stream().map(SearchResult::move).toList()).size());
+        for (int i = 1; i < lines.size(); i++) {
+            assertTrue(lines.get(i).score() <= lines.get(i - 1).score());
+            assertEquals(lines.get(i).move(), lines.get(i).pv()[0]);
+        }
+        assertEquals(4, updates.size());
+        assertEquals(1, updates.get(0).get(0).depth());
+        assertSame(lines, updates.get(3));
+        assertEquals(0, game.undoDepth());
+    }
+
+    @Test
+    void analysisStopsAtLegalMoves() {
+        // the king has three moves
+        List<SearchResult> lines = new Searcher().analyze(ChessGame.fromFen("k7/8/8/8/8/8/8/2R4K b - - 0 1"),
+                SearchLimits.depth(2), 5, update -> { });
+        assertEquals(3, lines.size());
+        assertTrue(new Searcher().analyze(ChessGame.fromFen("k7/8/1Q6/8/8/8/8/7K b - - 0 1"),
+                SearchLimits.depth(2), 5, update -> { }).isEmpty());
+    }
+
+    @Test
+    void pondersUntilHit() throws Exception {
+        Searcher searcher = new Searcher();
+        searcher.preparePonder();
+        List<SearchResult> result = new ArrayList<>();
+        Thread thread = new Thread(() -> result.add(searcher.ponder(new ChessGame(),
+                new SearchLimits(SearchLimits.MAX_DEPTH, 50, Long.MAX_VALUE))));
+        thread.start();
+        // the time limit does not count yet
+        thread.join(300);
+        assertTrue(thread.isAlive());
+        searcher.ponderHit();
+        thread.join(2000);
+        assertFalse(thread.isAlive());
+        assertTrue(result.get(0).millis() >= 300);
+        assertNotEquals(Move.NONE, result.get(0).move());
+    }
+
+    @Test
+    void keepsEarlyPonderHitAndStop() {
+        Searcher searcher = new Searcher();
+        searcher.preparePonder();
+        searcher.ponderHit();
+        SearchResult hit = searcher.ponder(new ChessGame(), SearchLimits.time(50));
+        assertTrue(hit.millis() < 1000, "took " + hit.millis() + " ms");
+
+        searcher.preparePonder();
+        searcher.stop();
+        SearchResult stopped = searcher.ponder(new ChessGame(), SearchLimits.depth(SearchLimits.MAX_DEPTH));
+        assertTrue(stopped.millis() < 1000, "took " + stopped.millis() + " ms");
+        assertNotEquals(Move.NONE, stopped.move());
+
+        // a normal search is timed from the start
+        SearchResult timed = searcher.search(new ChessGame(), SearchLimits.time(50));
+        assertTrue(timed.millis() < 1000, "took " + timed.millis() + " ms");
+    }
+}
@@ -0,0 +1,217 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Move;
+import chess.MoveList;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablebaseTests {
+
+    private static Path directory;
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    static void generate() throws IOException {
+        directory = Files.createTempDirectory("tablebase");
+        TablebaseGenerator generator = new TablebaseGenerator(directory, 2);
+        for (String name : new String[]{"KQK", "KRK", "KPK"}) {
+            generator.generate(name);
+        }
+        tablebase = new Tablebase(directory);
+    }
+
+    @AfterAll
+    static void delete() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static int probe(String fen) {
+        return tablebase.probe(ChessGame.fromFen(fen));
+    }
+
+    @Test
+    void namesEndings() {
+        assertEquals("KQKR", Tablebase.name(Tablebase.key("KQKR")));
+        assertEquals("KQKR", Tablebase.name(Tablebase.key("KRKQ")));
+        assertEquals("KQK", Tablebase.name(Tablebase.key("KKQ")));
+        assertEquals("KRPK", Tablebase.name(Tablebase.key("KPRK")));
+        assertThrows(IllegalArgumentException.class, () -> Tablebase.key("KK"));
+        assertThrows(IllegalArgumentException.class, () -> Tablebase.key("KQQKR"));
+        assertThrows(IllegalArgumentException.class, () -> Tablebase.key("KXK"));
+        assertTrue(TablebaseGenerator.endings().contains("KNNK"));
+        assertEquals(5 + 15 + 15, TablebaseGenerator.endings().size());
+    }
+
+    @Test
+    void generatesDependencies() {
+        // promotions from KPK lead to every three piece ending
+        for (String name : new String[]{"KQK", "KRK", "KBK", "KNK", "KPK"}) {
+            assertTrue(Files.isRegularFile(directory.resolve(name + ".tb")), name);
+        }
+    }
+
+    @Test
+    void scoresMates() {
+        assertEquals(Score.MATE - 1, probe("7k/8/5K2/8/8/8/8/6Q1 w - - 0 1"));
+        // the same with colours swapped, stored under the same entry
+        assertEquals(Score.MATE - 1, probe("6q1/8/8/8/8/5k2/8/7K b - - 0 1"));
+        assertEquals(Score.MATE - 1, probe("k7/8/2K5/8/8/8/8/1Q6 w - - 0 1"));
+        assertEquals(-Score.MATE, probe("7k/6Q1/6K1/8/8/8/8/8 b - - 0 1"));
+        assertEquals(-Score.MATE, probe("R6k/8/6K1/8/8/8/8/8 b - - 0 1"));
+        assertEquals(Score.DRAW, probe("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"));
+        // black takes the undefended queen
+        assertEquals(Score.DRAW, probe("7k/6Q1/8/8/8/8/8/K7 b - - 0 1"));
+        assertEquals(Score.DRAW, probe("7k/8/8/8/8/8/8/K7 w - - 0 1"));
+    }
+
+    @Test
+    void findsLongestMates() throws IOException {
+        assertEquals(19, longest("KQK"));
+        assertEquals(31, longest("KRK"));
+    }
+
+    private static int longest(String name) throws IOException {
+        byte[] table = Files.readAllBytes(directory.resolve(name + ".tb"));
+        int longest = 0;
+        for (byte value : table) {
+            longest = Math.max(longest, value);
+        }
+        return longest;
+    }
+
+    @Test
+    void knowsPawnEndings() {
+        // the king on a key square wins whoever is to move
+        assertTrue(probe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1") > Score.MATE - Searcher.MAX_PLY);
+        assertTrue(probe("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1") < -Score.MATE + Searcher.MAX_PLY);
+        assertEquals(Score.DRAW, probe("4k3/4P3/4K3/8/8/8/8/8 b - - 0 1"));
+        assertEquals(Score.DRAW, probe("7k/8/6K1/7P/8/8/8/8 w - - 0 1"));
+        assertEquals(Score.DRAW, probe("8/8/8/8/7p/6k1/8/7K b - - 0 1"));
+        // the rook pawn is lost for black to move, whose king cannot reach the corner
+        assertTrue(probe("8/8/8/8/P7/8/8/k6K b - - 0 1") < -Score.MATE + Searcher.MAX_PLY);
+        assertEquals(Tablebase.UNKNOWN, probe("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1"));
+    }
+
+    @Test
+    void skipsUncoveredPositions() {
+        assertEquals(Tablebase.UNKNOWN, probe("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1"));
+        assertEquals(Tablebase.UNKNOWN, probe("4k3/8/8/8/8/8/8/RR2K3 w - - 0 1"));
+        assertEquals(Tablebase.UNKNOWN, probe("4k3/8/8/8/8/8/8/RQ2K3 w - - 0 1"));
+        assertEquals(Tablebase.UNKNOWN, new Tablebase(directory.resolve("missing")).probe(
+                ChessGame.fromFen("7k/8/5K2/8/8/8/8/6Q1 w - - 0 1")));
+    }
+
+    @Test
+    void agreesWithItsMoves() {
+        SplittableRandom random = new SplittableRandom(7);
+        String[] pieces = {"Q", "R", "P", "q", "r", "p"};
+        MoveList moves = new MoveList();
+        int checked = 0;
+        while (checked < 300) {
+            ChessGame game = randomPosition(random, pieces[random.nextInt(pieces.length)]);
+            if (game == null) {
+                continue;
+            }
+            int score = tablebase.probe(game);
+            game.legalMoves(moves);
+            if (moves.isEmpty()) {
+                continue;
+            }
+            int best = -Score.INFINITY;
+            for (int i = 0; i < moves.size(); i++) {
+                game.makeMove(moves.get(i));
+                int child = tablebase.probe(game);
+                game.unmakeMove();
+                assertNotEquals(Tablebase.UNKNOWN, child, game.toFen());
+                // one ply further from the root
+                int fromHere = child > Score.DRAW ? child - 1 : child < Score.DRAW ? child + 1 : child;
+                best = Math.max(best, -fromHere);
+            }
+            assertEquals(best, score, game.toFen());
+            checked++;
+        }
+    }
+
+    // a legal position of the two kings and one other piece with nothing to capture en passant
+    private static ChessGame randomPosition(SplittableRandom random, String piece) {
+        char[] squares = new char[64];
+        int whiteKing = random.nextInt(64);
+        int blackKing = random.nextInt(64);
+        int other = random.nextInt(64);
+        if (whiteKing == blackKing || other == whiteKing || other == blackKing) {
+            return null;
+        }
+        if (piece.equalsIgnoreCase("P") && (other < 8 || other >= 56)) {
+            return null;
+        }
+        squares[whiteKing] = 'K';
+        squares[blackKing] = 'k';
+        squares[other] = piece.charAt(0);
+        StringBuilder fen = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                char c = squares[rank * 8 + file];
+                if (c == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(c);
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (rank > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(random.nextBoolean() ? " w" : " b").append(" - - 0 1");
+        try {
+            return ChessGame.fromFen(fen.toString());
+        } catch (IllegalArgumentException e) {
+            // the side not to move is in check
+            return null;
+        }
+    }
+
+    @Test
+    @Tag("slow")
+    void scoresDoublePushesFromEnPassant() throws IOException {
+        // builds every four piece table the pawns can promote into, so takes a while
+        new TablebaseGenerator(directory, 2).generate("KPKP");
+        // a4 wins if black cannot answer it, but bxa3 e.p. leaves a drawn rook pawn
+        assertTrue(probe("8/8/8/8/Pp6/6k1/8/K7 b - - 0 1") < Score.DRAW);
+        assertEquals(Tablebase.UNKNOWN, probe("8/8/8/8/Pp6/6k1/8/K7 b - a3 0 1"));
+        assertEquals(Score.DRAW, probe("8/8/8/8/1p6/6k1/P7/K7 w - - 0 1"));
+    }
+
+    @Test
+    void searchUsesTablebase() {
+        Searcher searcher = new Searcher(new TranspositionTable(), tablebase);
+        ChessGame game = ChessGame.fromFen("8/8/8/4k3/8/8/8/4K2R w - - 0 1");
+        SearchResult result = searcher.search(game, SearchLimits.depth(3));
+        assertTrue(Score.isMate(result.score()), Score.toString(result.score()));
+        assertEquals(tablebase.probe(game), result.score());
+        assertNotEquals(Move.NONE, result.move());
+    }
+}
@@ -0,0 +1,111 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Move;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTests {
+
+    @Test
+    void storesAndProbes() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x123456789ABCDEFL;
+        assertEquals(0, table.probe(key));
+
+        int move = Move.encode(12, 28, Move.DOUBLE_PUSH);
+        table.store(key, move, -45, 7, TranspositionTable.LOWER, 3);
+        long entry = table.probe(key);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-45, TranspositionTable.score(entry, 3));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(0, table.probe(key ^ 1L << 40));
+    }
+
+    @Test
+    void mateScoresAreRelativeToNode() {
+        TranspositionTable table = new TranspositionTable(1);
+        // mate found 5 plies below a node at ply 2
+        table.store(42, Move.NONE, Score.MATE - 7, 5, TranspositionTable.EXACT, 2);
+        assertEquals(Score.MATE - 9, TranspositionTable.score(table.probe(42), 4));
+        table.store(43, Move.NONE, -Score.MATE + 7, 5, TranspositionTable.EXACT, 2);
+        assertEquals(-Score.MATE + 5, TranspositionTable.score(table.probe(43), 0));
+    }
+
+    @Test
+    void keepsMoveWhenResultHasNone() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = Move.encode(6, 21);
+        table.store(99, move, 10, 4, TranspositionTable.EXACT, 0);
+        table.store(99, Move.NONE, -20, 5, TranspositionTable.UPPER, 0);
+        assertEquals(move, TranspositionTable.move(table.probe(99)));
+        assertEquals(5, TranspositionTable.depth(table.probe(99)));
+    }
+
+    @Test
+    void replacesShallowAndStaleEntriesFirst() {
+        TranspositionTable table = new TranspositionTable(1);
+        // keys differing only above the bucket bits share a bucket
+        long[] keys = {1L << 40, 2L << 40, 3L << 40, 4L << 40};
+        int[] depths = {9, 2, 7, 8};
+        for (int i = 0; i < keys.length; i++) {
+            table.store(keys[i], Move.NONE, 0, depths[i], TranspositionTable.EXACT, 0);
+        }
+        table.store(5L << 40, Move.NONE, 0, 1, TranspositionTable.EXACT, 0);
+        assertEquals(0, table.probe(keys[1]));
+        assertNotEquals(0, table.probe(5L << 40));
+
+        table.newSearch();
+        table.store(6L << 40, Move.NONE, 0, 1, TranspositionTable.EXACT, 0);
+        table.store(7L << 40, Move.NONE, 0, 1, TranspositionTable.EXACT, 0);
+        assertNotEquals(0, table.probe(keys[0]), "deepest entry from the last search survives");
+        assertNotEquals(0, table.probe(6L << 40));
+        assertNotEquals(0, table.probe(7L << 40));
+    }
+
+    @Test
+    void concurrentWritersNeverMixEntries() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(1);
+        AtomicInteger wrong = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long seed = t;
+            threads.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < 200_000; i++) {
+                    // few buckets, so threads keep overwriting each other's entries
+                    long key = random.nextLong() & 0xFF00_0000_0000_00FFL;
+                    int score = (int) (key >>> 56) - 128;
+                    table.store(key, Move.NONE, score, (int) (key & 63), TranspositionTable.EXACT, 0);
+                    long entry = table.probe(key);
+                    if (entry != 0 && (TranspositionTable.score(entry, 0) != score
+                            || TranspositionTable.depth(entry) != (int) (key & 63))) {
+                        wrong.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, wrong.get());
+    }
+
+    @Test
+    void sharedTableSpeedsUpRepeatSearch() {
+        TranspositionTable table = new TranspositionTable(4);
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        SearchResult first = new Searcher(table).search(game, SearchLimits.depth(4));
+        SearchResult second = new Searcher(table).search(game, SearchLimits.depth(4));
+        assertEquals(first.move(), second.move());
+        assertTrue(second.nodes() < first.nodes(), first.nodes() + " then " + second.nodes());
+    }
+}